@@ -0,0 +1,45 @@
+package behavioral.command;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Замер: команд в секунду при групповом коммите с пачками fsync по 1, 64 и 1024 записи.
+// 16 потоков-покупателей, у каждого своя корзина; подтверждения ждём в конце прогона.
+public class Benchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = 16, perThread = 2_000;
+        for (int batch : new int[]{1, 64, 1024}) {
+            Path dir = Files.createTempDirectory("journal");
+            try (var carts = JournaledCarts.open(dir, batch)) {
+                var acks = new ArrayList<List<CompletableFuture<Void>>>();
+                var workers = new ArrayList<Thread>();
+                long t0 = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    String cart = "cart-" + t;
+                    var mine = new ArrayList<CompletableFuture<Void>>(perThread);
+                    acks.add(mine);
+                    var w = new Thread(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            mine.add(i % 3 == 2
+                                    ? carts.run(cart, c -> new RemoveItemFromCart(c, "PRODUCT-APPLE", 1))
+                                    : carts.run(cart, c -> new AddItemToCart(c, "PRODUCT-APPLE", 1)));
+                        }
+                    });
+                    workers.add(w);
+                    w.start();
+                }
+                for (Thread w : workers) w.join();
+                for (var list : acks) list.forEach(CompletableFuture::join);
+                double sec = (System.nanoTime() - t0) / 1e9;
+                System.out.printf("fsync batch %4d: %,10.0f commands/s%n", batch, threads * perThread / sec);
+            }
+            try (var files = Files.list(dir)) {
+                for (Path f : files.toList()) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+    }
+}
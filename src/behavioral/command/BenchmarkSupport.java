@@ -0,0 +1,25 @@
+package behavioral.command;
+
+import java.lang.ref.Reference;
+import java.util.function.Supplier;
+
+// Общее для замеров памяти команд: сколько кучи удерживает построенная структура.
+// Упрощённый прогон без JMH: занятая память после System.gc().
+final class BenchmarkSupport {
+    private BenchmarkSupport() {}
+
+    // занятая память после System.gc() до и после build; результат жив до второго замера
+    static long retained(Supplier<?> build) {
+        long before = usedAfterGc();
+        Object keep = build.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(keep);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        var rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
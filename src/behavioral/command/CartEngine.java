@@ -0,0 +1,123 @@
+package behavioral.command;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Шардированный движок корзин: id корзины хешируется в один из N шардов,
+// у каждого шарда свой поток-владелец и почтовый ящик. Все команды корзины исполняет
+// только её владелец, поэтому ShoppingCart и CommandInvoker работают без блокировок.
+final class CartEngine implements AutoCloseable {
+    private static final int DRAIN_BATCH = 256;
+
+    private final Shard[] shards;
+
+    CartEngine(int shardCount) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(i);
+    }
+
+    // Команда строится под корзину на потоке шарда: run("c1", cart -> new AddItemToCart(cart, "PRODUCT-APPLE", 2))
+    CompletableFuture<Void> run(String cartId, Function<ShoppingCart, CartCommand> factory) {
+        return ask(cartId, s -> {
+            s.invoker().run(factory.apply(s.cart()));
+            return null;
+        });
+    }
+
+    CompletableFuture<Void> undoLast(String cartId) {
+        return ask(cartId, s -> {
+            s.invoker().undoLast();
+            return null;
+        });
+    }
+
+    CompletableFuture<Integer> countOf(String cartId, String productCode) {
+        return ask(cartId, s -> s.cart().countOf(productCode));
+    }
+
+    @Override public void close() {
+        for (Shard s : shards) s.stop();
+    }
+
+    private <R> CompletableFuture<R> ask(String cartId, Function<Session, R> action) {
+        int h = cartId.hashCode();
+        var shard = shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+        var future = new CompletableFuture<R>();
+        shard.offer(new Task<>(cartId, action, future));
+        return future;
+    }
+
+    private record Session(ShoppingCart cart, CommandInvoker invoker) {}
+
+    private record Task<R>(String cartId, Function<Session, R> action, CompletableFuture<R> future) {
+        void runOn(Map<String, Session> carts) {
+            try {
+                var s = carts.computeIfAbsent(cartId, id -> new Session(new ShoppingCart(), new CommandInvoker(CartHistoryCodec.INSTANCE)));
+                future.complete(action.apply(s));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Shard implements Runnable {
+        private final Queue<Task<?>> mailbox = new ConcurrentLinkedQueue<>();
+        private final Map<String, Session> carts = new HashMap<>(); // трогает только поток шарда
+        private final Thread owner;
+        private volatile boolean waiting;
+        private volatile boolean running = true;
+
+        Shard(int index) {
+            owner = new Thread(this, "cart-shard-" + index);
+            owner.setDaemon(true);
+            owner.start();
+        }
+
+        void offer(Task<?> task) {
+            if (!running) {
+                task.future().completeExceptionally(closed());
+                return;
+            }
+            mailbox.offer(task);
+            if (waiting) LockSupport.unpark(owner);
+            // close() мог пройти между проверкой и offer: владелец уже вышел, задачу никто не заберёт.
+            // Её забирает либо remove здесь, либо дочистка в stop() — ровно один из них
+            if (!running && mailbox.remove(task)) task.future().completeExceptionally(closed());
+        }
+
+        @Override public void run() {
+            while (running || !mailbox.isEmpty()) {
+                int drained = 0;
+                Task<?> task;
+                while (drained < DRAIN_BATCH && (task = mailbox.poll()) != null) { // пачкой, без блокировок
+                    task.runOn(carts);
+                    drained++;
+                }
+                if (drained == 0) {
+                    waiting = true;
+                    if (mailbox.isEmpty() && running) LockSupport.parkNanos(this, 1_000_000);
+                    waiting = false;
+                }
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(owner);
+            try {
+                owner.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // владелец ещё жив и сам дочистит ящик
+            }
+            for (Task<?> t; (t = mailbox.poll()) != null; ) t.future().completeExceptionally(closed());
+        }
+
+        private static IllegalStateException closed() { return new IllegalStateException("cart engine is closed"); }
+    }
+}
@@ -0,0 +1,66 @@
+package behavioral.command;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Замер масштабирования: CartEngine на 1..N шардах против одного глобального замка вокруг корзин.
+// На каждом прогоне столько же потоков-клиентов, сколько шардов; корзины у клиентов свои.
+public class CartEngineBenchmark {
+    private static final int OPS_PER_CLIENT = 200_000;
+    private static final int CARTS_PER_CLIENT = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int n = 1; ; n = Math.min(n * 2, cores)) { // 1, 2, 4 ... cores
+            System.out.printf("%2d cores: global lock %,12.0f ops/s, sharded %,12.0f ops/s%n",
+                    n, globalLock(n), sharded(n));
+            if (n == cores) break;
+        }
+    }
+
+    private static double globalLock(int clients) throws InterruptedException {
+        Map<String, ShoppingCart> carts = new HashMap<>();
+        Object lock = new Object();
+        return measure(clients, (client, i) -> {
+            String id = "cart-" + client + "-" + (i % CARTS_PER_CLIENT);
+            synchronized (lock) {
+                new AddItemToCart(carts.computeIfAbsent(id, k -> new ShoppingCart()), "PRODUCT-APPLE", 1).execute();
+            }
+        });
+    }
+
+    private static double sharded(int shards) throws InterruptedException {
+        try (var engine = new CartEngine(shards)) {
+            var last = new CompletableFuture<?>[shards];
+            double rate = measure(shards, (client, i) -> {
+                var f = engine.run("cart-" + client + "-" + (i % CARTS_PER_CLIENT),
+                        c -> new AddItemToCart(c, "PRODUCT-APPLE", 1));
+                if (i == OPS_PER_CLIENT - 1) last[client] = f;
+                else if ((i & 1023) == 0) f.join(); // не даём очереди расти без предела
+            }, () -> CompletableFuture.allOf(last).join());
+            return rate;
+        }
+    }
+
+    private interface Op { void apply(int client, int i); }
+
+    private static double measure(int clients, Op op) throws InterruptedException {
+        return measure(clients, op, () -> {});
+    }
+
+    private static double measure(int clients, Op op, Runnable finish) throws InterruptedException {
+        var threads = new Thread[clients];
+        long t0 = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> {
+                for (int i = 0; i < OPS_PER_CLIENT; i++) op.apply(client, i);
+            });
+            threads[c].start();
+        }
+        for (Thread t : threads) t.join();
+        finish.run();
+        return (double) clients * OPS_PER_CLIENT / ((System.nanoTime() - t0) / 1e9);
+    }
+}
@@ -0,0 +1,36 @@
+package behavioral.command;
+
+// Сжатие истории корзин для CommandInvoker: AddItemToCart / RemoveItemFromCart —
+// [varint cartRef << 1 | kind][zigzag varint id - prevId][varint count], id товара — из ProductCodes.
+// Корзина кладётся в таблицу ссылок блока и забывается вместе с блоком.
+final class CartHistoryCodec implements HistoryCodec {
+    static final CartHistoryCodec INSTANCE = new CartHistoryCodec();
+
+    private static final int ADD = 0, REMOVE = 1;
+
+    private CartHistoryCodec() {}
+
+    @Override public boolean write(CartCommand c, Writer out) {
+        if (c instanceof AddItemToCart a) item(out, ADD, a.cart(), a.productCode(), a.count());
+        else if (c instanceof RemoveItemFromCart r) item(out, REMOVE, r.cart(), r.productCode(), r.actuallyRemoved());
+        else return false;
+        return true;
+    }
+
+    @Override public CartCommand read(Reader in) {
+        int tag = in.varint();
+        in.context += in.zigzag();
+        var cart = (ShoppingCart) in.ref(tag >>> 1);
+        String code = ProductCodes.codeOf(in.context);
+        int count = in.varint();
+        return (tag & 1) == ADD ? new AddItemToCart(cart, code, count) : RemoveItemFromCart.executed(cart, code, count);
+    }
+
+    private static void item(Writer out, int kind, ShoppingCart cart, String code, int count) {
+        int id = ProductCodes.intern(code);
+        out.varint(out.ref(cart) << 1 | kind);
+        out.zigzag(id - out.context);
+        out.varint(count);
+        out.context = id;
+    }
+}
@@ -0,0 +1,84 @@
+package behavioral.command;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Замер памяти и скорости: прежняя корзина (LinkedHashMap<String, Integer>) против
+// ShoppingCart на IntCountMap + ProductCodes. Упрощённый прогон без JMH:
+// удержанная куча — по разнице used после GC, аллокации — по счётчику потока HotSpot.
+public class CartMemoryBenchmark {
+    private static final int CARTS = 200_000, ITEMS = 5, OPS = 10_000_000;
+    private static final String[] CODES = new String[50];
+
+    // прежняя реализация — только для сравнения
+    private static final class LegacyCart {
+        private final Map<String, Integer> items = new LinkedHashMap<>();
+        void addItem(String code, int count) { items.merge(code, count, Integer::sum); }
+        void removeItem(String code, int count) {
+            int next = Math.max(0, items.getOrDefault(code, 0) - count);
+            if (next == 0) items.remove(code); else items.put(code, next);
+        }
+        int countOf(String code) { return items.getOrDefault(code, 0); }
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < CODES.length; i++) CODES[i] = "PRODUCT-" + i;
+
+        long legacyHeap = BenchmarkSupport.retained(() -> {
+            var carts = new LegacyCart[CARTS];
+            for (int c = 0; c < CARTS; c++) {
+                carts[c] = new LegacyCart();
+                for (int i = 0; i < ITEMS; i++) carts[c].addItem(CODES[(c + i * 7) % CODES.length], 1000 + i);
+            }
+            return carts;
+        });
+        long primitiveHeap = BenchmarkSupport.retained(() -> {
+            var carts = new ShoppingCart[CARTS];
+            for (int c = 0; c < CARTS; c++) {
+                carts[c] = new ShoppingCart();
+                for (int i = 0; i < ITEMS; i++) carts[c].addItem(CODES[(c + i * 7) % CODES.length], 1000 + i);
+            }
+            return carts;
+        });
+        System.out.printf("footprint: legacy %5.1f MB (%4d B/cart), primitive %5.1f MB (%4d B/cart)%n",
+                legacyHeap / 1048576.0, legacyHeap / CARTS, primitiveHeap / 1048576.0, primitiveHeap / CARTS);
+
+        var legacy = new LegacyCart();
+        var cart = new ShoppingCart();
+        for (int round = 1; round <= 3; round++) { // первые раунды — прогрев JIT
+            report(round, "legacy", () -> {
+                long sum = 0;
+                for (int i = 0; i < OPS; i++) {
+                    String code = CODES[i % CODES.length];
+                    legacy.addItem(code, 1000);
+                    sum += legacy.countOf(code);
+                    legacy.removeItem(code, 1);
+                }
+                return sum;
+            });
+            report(round, "primitive", () -> {
+                long sum = 0;
+                for (int i = 0; i < OPS; i++) {
+                    String code = CODES[i % CODES.length];
+                    cart.addItem(code, 1000);
+                    sum += cart.countOf(code);
+                    cart.removeItem(code, 1);
+                }
+                return sum;
+            });
+        }
+    }
+
+    private interface Work { long run(); }
+
+    private static void report(int round, String name, Work work) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long a0 = threads.getThreadAllocatedBytes(tid), t0 = System.nanoTime();
+        long sink = work.run();
+        long ns = System.nanoTime() - t0, bytes = threads.getThreadAllocatedBytes(tid) - a0;
+        System.out.printf("round %d %-9s %6.1f ns/op, %5.1f B/op allocated (sink %d)%n",
+                round, name, (double) ns / OPS, (double) bytes / OPS, sink % 10);
+    }
+}
@@ -0,0 +1,359 @@
+package behavioral.command;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Метка в истории: до неё можно откатиться одним undoTo(name)
+record HistoryMarker(String name) implements CartCommand {
+    @Override public void execute() {}
+    @Override public void undo() {}
+}
+
+// Транзакция: несколько команд отменяются и повторяются как одна
+record CommandGroup(List<CartCommand> commands) implements CartCommand {
+    CommandGroup {
+        commands = List.copyOf(commands);
+    }
+
+    @Override public void execute() {
+        for (CartCommand c : commands) c.execute();
+    }
+
+    @Override public void undo() {
+        for (int i = commands.size() - 1; i >= 0; i--) commands.get(i).undo();
+    }
+}
+
+// Как сжать в байты команды конкретного получателя. Invoker сам кодирует только группы
+// и хранит ссылкой то, что кодек не взял; всё про корзины и товары — в кодеке (см. CartHistoryCodec)
+interface HistoryCodec {
+    // кодек, который ничего не сжимает: все команды лежат в блоках ссылками
+    HistoryCodec NONE = new HistoryCodec() {
+        public boolean write(CartCommand c, Writer out) { return false; }
+        public CartCommand read(Reader in) { throw new IllegalStateException("nothing was encoded"); }
+    };
+
+    // записать c в out и вернуть true; false — команда уйдёт в блок как есть
+    boolean write(CartCommand c, Writer out);
+
+    // прочитать то, что записал write
+    CartCommand read(Reader in);
+
+    // Запись одного блока: varint и ссылки на объекты (одинаковые — один раз на блок).
+    // context — свободное число кодека в пределах блока, например предыдущий id для дельты
+    final class Writer {
+        byte[] buf = new byte[1024];
+        int len;
+        int context;
+        final List<Object> refs = new ArrayList<>();
+        private final Map<Object, Integer> refIndex = new IdentityHashMap<>();
+
+        void varint(int v) {
+            if (len + 5 > buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            while ((v & ~0x7F) != 0) {
+                buf[len++] = (byte) (v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void zigzag(int v) { varint(v << 1 ^ v >> 31); }
+
+        // индекс объекта в таблице ссылок блока
+        int ref(Object o) {
+            return refIndex.computeIfAbsent(o, k -> {
+                refs.add(k);
+                return refs.size() - 1;
+            });
+        }
+    }
+
+    final class Reader {
+        private final byte[] data;
+        private final Object[] refs;
+        int pos;
+        int context;
+
+        Reader(byte[] data, Object[] refs) {
+            this.data = data;
+            this.refs = refs;
+        }
+
+        boolean hasMore() { return pos < data.length; }
+
+        int varint() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+        }
+
+        int zigzag() {
+            int zz = varint();
+            return zz >>> 1 ^ -(zz & 1);
+        }
+
+        Object ref(int index) { return refs[index]; }
+    }
+}
+
+// Инициатор (Invoker): выполняет команды и хранит историю для undo/redo.
+// Свежая история — кольцо не больше depth объектов-команд; соседние команды по одному товару
+// сливаются в одну запись. Вытесненные из кольца записи пачками сжимаются кодеком в байты
+// и разворачиваются обратно, когда undo до них доходит. Сжатой истории не больше maxColdBytes —
+// самое старое сверх этого забывается вместе со всеми ссылками блока.
+// Пустой invoker почти ничего не весит: кольцо растёт по мере записи, остальное создаётся при первом использовании.
+final class CommandInvoker {
+    private static final int DEFAULT_DEPTH = 1024;
+    private static final long DEFAULT_COLD_BYTES = 4L << 20;
+    private static final int SPILL_BLOCK = 256;
+    private static final int MIN_RING = 8;
+    private static final CartCommand[] EMPTY = {};
+
+    // виды записей в сжатом блоке
+    private static final int GROUP = 0, REF = 1, CODEC = 2;
+
+    // сжатый блок: записи от старой к новой; refs — объекты, на которые блок ссылается
+    private record Block(byte[] data, Object[] refs, int entries) {}
+
+    private final int depth;
+    private final HistoryCodec codec;
+    private CartCommand[] ring = EMPTY;
+    private int head, size; // head — самая старая запись кольца
+
+    private Deque<Block> cold; // last — самый свежий блок
+    private final long maxColdBytes;
+    private long coldBytes;
+    private long coldEntries;
+    private long dropped;
+
+    private Deque<CartCommand> redoStack;
+    private Map<String, Integer> markers; // имя -> сколько таких меток в истории
+
+    private List<CartCommand> openGroup; // != null — идёт транзакция
+
+    CommandInvoker() { this(HistoryCodec.NONE); }
+
+    CommandInvoker(HistoryCodec codec) { this(DEFAULT_DEPTH, DEFAULT_COLD_BYTES, codec); }
+
+    // depth — сколько записей держим объектами; maxColdBytes = 0 — старое не сжимаем, а сразу забываем
+    CommandInvoker(int depth, long maxColdBytes, HistoryCodec codec) {
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive: " + depth);
+        this.depth = depth;
+        this.maxColdBytes = maxColdBytes;
+        this.codec = codec;
+    }
+
+    void run(CartCommand command) {
+        command.execute();
+        if (redoStack != null) redoStack.clear();
+        if (openGroup != null) {
+            int last = openGroup.size() - 1;
+            CartCommand merged = last < 0 ? null : openGroup.get(last).coalesce(command);
+            if (merged != null) openGroup.set(last, merged);
+            else openGroup.add(command);
+            return;
+        }
+        CartCommand merged = size == 0 ? null : ring[slot(size - 1)].coalesce(command);
+        if (merged != null) ring[slot(size - 1)] = merged;
+        else push(command);
+    }
+
+    // возвращает отменённую команду (или null, если отменять нечего)
+    CartCommand undoLast() {
+        requireNoTransaction();
+        if (size == 0 && cold != null && !cold.isEmpty()) inflate(cold.pollLast());
+        if (size == 0) return null;
+        int s = slot(--size);
+        CartCommand command = ring[s];
+        ring[s] = null;
+        command.undo();
+        if (command instanceof HistoryMarker m) forget(m);
+        if (redoStack == null) redoStack = new ArrayDeque<>();
+        redoStack.push(command);
+        return command;
+    }
+
+    // повторяет последнюю отменённую команду; любая новая run() сбрасывает redo
+    CartCommand redo() {
+        requireNoTransaction();
+        CartCommand command = redoStack == null ? null : redoStack.poll();
+        if (command == null) return null;
+        command.execute();
+        push(command);
+        return command;
+    }
+
+    void mark(String name) {
+        requireNoTransaction();
+        push(new HistoryMarker(name));
+        if (redoStack != null) redoStack.clear();
+    }
+
+    // откат до последней метки name включительно; возвращает число отменённых команд без самой метки
+    int undoTo(String name) {
+        requireNoTransaction();
+        if (markers == null || !markers.containsKey(name)) throw new IllegalArgumentException("no marker in history: " + name);
+        int undone = 0;
+        while (!(undoLast() instanceof HistoryMarker m && m.name().equals(name))) undone++;
+        return undone;
+    }
+
+    // --- транзакции: команды выполняются сразу, в историю попадают одной записью ---
+
+    void begin() {
+        if (openGroup != null) throw new IllegalStateException("transaction is already open");
+        openGroup = new ArrayList<>();
+    }
+
+    void commit() {
+        requireTransaction();
+        var group = openGroup;
+        openGroup = null;
+        if (!group.isEmpty()) push(new CommandGroup(group));
+    }
+
+    void rollback() {
+        requireTransaction();
+        var group = openGroup;
+        openGroup = null;
+        for (int i = group.size() - 1; i >= 0; i--) group.get(i).undo();
+    }
+
+    // --- состояние истории ---
+
+    long depth() { return size + coldEntries; }
+    long coldBytes() { return coldBytes; }
+    long dropped() { return dropped; } // сколько старых записей забыто из-за лимитов
+
+    // --- кольцо ---
+
+    private int slot(int i) { return (head + i) % ring.length; }
+
+    private void push(CartCommand command) {
+        if (command instanceof HistoryMarker m) {
+            if (markers == null) markers = new HashMap<>();
+            markers.merge(m.name(), 1, Integer::sum);
+        }
+        if (size == ring.length) {
+            if (ring.length < depth) grow(Math.min(depth, Math.max(MIN_RING, 2 * ring.length)));
+            else spill(Math.max(1, Math.min(SPILL_BLOCK, depth / 2)));
+        }
+        ring[slot(size++)] = command;
+    }
+
+    // новое кольцо той же истории; записи переезжают по порядку, head — в начало
+    private void grow(int capacity) {
+        var next = new CartCommand[capacity];
+        for (int i = 0; i < size; i++) next[i] = ring[slot(i)];
+        ring = next;
+        head = 0;
+    }
+
+    private CartCommand pollOldest() {
+        CartCommand c = ring[head];
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        size--;
+        return c;
+    }
+
+    // n самых старых записей кольца — в сжатый блок
+    private void spill(int n) {
+        if (maxColdBytes <= 0) {
+            for (int i = 0; i < n; i++) forgetAll(pollOldest());
+            dropped += n;
+            return;
+        }
+        var out = new HistoryCodec.Writer();
+        for (int i = 0; i < n; i++) write(pollOldest(), out);
+        var block = new Block(Arrays.copyOf(out.buf, out.len), out.refs.toArray(), n);
+        if (cold == null) cold = new ArrayDeque<>();
+        cold.addLast(block);
+        coldBytes += block.data().length;
+        coldEntries += n;
+        while (coldBytes > maxColdBytes && cold.size() > 1) {
+            var oldest = cold.pollFirst();
+            coldBytes -= oldest.data().length;
+            coldEntries -= oldest.entries();
+            dropped += oldest.entries();
+            forgetMarkers(oldest);
+        }
+    }
+
+    // кольцо пусто: свежий сжатый блок разворачивается обратно в объекты
+    private void inflate(Block block) {
+        coldBytes -= block.data().length;
+        var in = new HistoryCodec.Reader(block.data(), block.refs());
+        var commands = new ArrayList<CartCommand>(block.entries());
+        while (in.hasMore()) commands.add(read(in));
+        coldEntries -= commands.size();
+        if (ring.length < commands.size()) ring = new CartCommand[Math.min(depth, Math.max(MIN_RING, commands.size()))];
+        head = 0;
+        for (CartCommand c : commands) ring[size++] = c; // блок не больше половины depth
+    }
+
+    private void forget(HistoryMarker m) {
+        markers.computeIfPresent(m.name(), (k, n) -> n == 1 ? null : n - 1);
+    }
+
+    private void forgetAll(CartCommand c) {
+        if (c instanceof HistoryMarker m) forget(m);
+        else if (c instanceof CommandGroup g) g.commands().forEach(this::forgetAll);
+    }
+
+    // метки в выброшенном блоке: закодированными они быть не могут, только ссылками
+    private void forgetMarkers(Block block) {
+        for (Object ref : block.refs()) if (ref instanceof CartCommand c) forgetAll(c);
+    }
+
+    private void requireTransaction() {
+        if (openGroup == null) throw new IllegalStateException("no open transaction");
+    }
+
+    private void requireNoTransaction() {
+        if (openGroup != null) throw new IllegalStateException("transaction is open");
+    }
+
+    // --- сжатие: [varint kind] затем GROUP: [varint n]{записи}; REF: [varint refIdx]; CODEC: байты кодека ---
+
+    private void write(CartCommand c, HistoryCodec.Writer out) {
+        if (c instanceof CommandGroup g) {
+            out.varint(GROUP);
+            out.varint(g.commands().size());
+            for (CartCommand inner : g.commands()) write(inner, out);
+            return;
+        }
+        int mark = out.len;
+        out.varint(CODEC);
+        if (codec.write(c, out)) return;
+        out.len = mark; // кодек не взял — храним ссылкой
+        out.varint(REF);
+        out.varint(out.ref(c));
+    }
+
+    private CartCommand read(HistoryCodec.Reader in) {
+        switch (in.varint()) {
+            case GROUP -> {
+                int n = in.varint();
+                var inner = new ArrayList<CartCommand>(n);
+                for (int i = 0; i < n; i++) inner.add(read(in));
+                return new CommandGroup(inner);
+            }
+            case REF -> {
+                return (CartCommand) in.ref(in.varint());
+            }
+            default -> {
+                return codec.read(in);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package behavioral.command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Запись журнала: эффект команды над конкретной корзиной
+record JournalEntry(long seq, byte type, String cartId, String productCode, int count) {
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+
+    void applyTo(ShoppingCart cart) {
+        if (type == ADD) cart.addItem(productCode, count);
+        else cart.removeItem(productCode, count);
+    }
+}
+
+// Append-only журнал команд (write-ahead log) с групповым коммитом:
+// писатели только кладут запись в очередь, один поток-сбросчик пишет накопившееся пачкой
+// до maxBatch записей и делает один fsync на всю пачку.
+//
+// Формат записи: [int bodyLen][int crc][long seq][byte type][short cartLen][cart][short codeLen][code][int count],
+// длины — беззнаковые, до 65535 байт UTF-8
+final class CommandJournal implements AutoCloseable {
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final int MAX_STRING = 0xFFFF;
+
+    // задание сбросчику: запись журнала или контрольная точка (snapshot != null)
+    private record Job(JournalEntry entry, byte[] snapshot, CompletableFuture<Void> done) {}
+
+    private final Path log;
+    private final Path snapshotFile;
+    private final FileChannel ch;
+    private final int maxBatch;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private long durable; // конец журнала на диске после последнего fsync; только поток-сбросчик
+
+    CommandJournal(Path dir, int maxBatch) throws IOException {
+        this.log = dir.resolve("commands.log");
+        this.snapshotFile = dir.resolve("carts.snap");
+        this.maxBatch = maxBatch;
+        this.ch = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ch.position(validLength(log)); // оборванный хвост после сбоя перезаписываем
+        ch.truncate(ch.position());
+        durable = ch.position();
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // future завершается, когда запись гарантированно на диске
+    CompletableFuture<Void> append(JournalEntry e) {
+        requireFits(e.cartId());
+        requireFits(e.productCode()); // отказ здесь, а не в сбросчике, где он уронил бы всю пачку
+        return submit(new Job(e, null, new CompletableFuture<>()));
+    }
+
+    // Снимок заменяет всё, что в очереди до него: после записи снимка журнал обрезается
+    CompletableFuture<Void> checkpoint(byte[] snapshot) {
+        return submit(new Job(null, snapshot, new CompletableFuture<>()));
+    }
+
+    @Override public void close() throws IOException {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // сбросчик ещё жив и сам допишет очередь
+        }
+        ch.close();
+        for (Job job; (job = queue.poll()) != null; ) job.done().completeExceptionally(closed());
+    }
+
+    // после close() запись сразу отвергается: сбросчика, который завершил бы её future, уже нет
+    private CompletableFuture<Void> submit(Job job) {
+        if (!running) return CompletableFuture.failedFuture(closed());
+        queue.add(job);
+        // close() мог пройти между проверкой и add: задачу забирает либо remove здесь, либо дочистка в close()
+        if (!running && queue.remove(job)) job.done().completeExceptionally(closed());
+        return job.done();
+    }
+
+    private static IllegalStateException closed() { return new IllegalStateException("journal is closed"); }
+
+    // --- сбросчик ---
+
+    private void flushLoop() {
+        var batch = new ArrayList<Job>(maxBatch);
+        var written = new ArrayList<Job>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Job first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1); // всё, что накопилось за время прошлого fsync
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                for (Job job : batch) {
+                    if (job.snapshot() == null) {
+                        encode(job.entry());
+                        written.add(job);
+                    } else {
+                        commit(written);
+                        writeSnapshot(job.snapshot());
+                        job.done().complete(null);
+                    }
+                }
+                commit(written);
+            } catch (IOException | RuntimeException e) {
+                for (Job job : batch) job.done().completeExceptionally(e);
+                rewind();
+            } finally {
+                batch.clear();
+                written.clear();
+            }
+        }
+    }
+
+    private void commit(List<Job> written) throws IOException {
+        if (written.isEmpty()) return;
+        drain();
+        ch.force(false); // один fsync на всю пачку
+        durable = ch.position();
+        for (Job job : written) job.done().complete(null);
+        written.clear();
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        try {
+            while (buf.hasRemaining()) ch.write(buf);
+        } finally {
+            buf.clear(); // недописанное не должно уйти в файл вместе со следующей пачкой
+        }
+    }
+
+    // сбой пачки: её записи отклонены — срезаем всё, что успело лечь в файл после последнего fsync,
+    // иначе следующие записи встанут за оборванной и при проигрывании окажутся за её границей
+    private void rewind() {
+        buf.clear();
+        try {
+            ch.truncate(durable);
+            ch.position(durable);
+        } catch (IOException e) {
+            // канал недоступен — следующая пачка тоже упадёт; при открытии хвост отсечёт validLength
+        }
+    }
+
+    private void encode(JournalEntry e) throws IOException {
+        byte[] cart = e.cartId().getBytes(StandardCharsets.UTF_8);
+        byte[] code = e.productCode().getBytes(StandardCharsets.UTF_8);
+        if (buf.remaining() < HEADER + 15 + cart.length + code.length) drain();
+        int start = buf.position();
+        buf.position(start + HEADER);
+        buf.putLong(e.seq()).put(e.type())
+           .putShort((short) cart.length).put(cart)
+           .putShort((short) code.length).put(code)
+           .putInt(e.count());
+        int bodyLen = buf.position() - start - HEADER;
+        buf.putInt(start, bodyLen).putInt(start + Integer.BYTES, crc(buf, start + HEADER, bodyLen));
+    }
+
+    static void requireFits(String s) {
+        // в UTF-8 символ занимает до трёх байт: короткие строки не кодируем ради проверки
+        if (s.length() > MAX_STRING / 3 && s.getBytes(StandardCharsets.UTF_8).length > MAX_STRING) {
+            throw new IllegalArgumentException("longer than " + MAX_STRING + " bytes in UTF-8: " + s.substring(0, 32) + "…");
+        }
+    }
+
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (var out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var b = ByteBuffer.wrap(snapshot);
+            while (b.hasRemaining()) out.write(b);
+            out.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // всё, что было до снимка, теперь в нём; при сбое до truncate повтор отсекается по seq
+        ch.truncate(0);
+        ch.position(0);
+        ch.force(true);
+        durable = 0;
+    }
+
+    // --- восстановление ---
+
+    // Проигрывает журнал из memory-mapped файла; записи с seq <= afterSeq уже есть в снимке
+    static long replay(Path dir, long afterSeq, Consumer<JournalEntry> apply) throws IOException {
+        Path log = dir.resolve("commands.log");
+        if (!Files.exists(log)) return afterSeq;
+        long lastSeq = afterSeq;
+        try (var in = FileChannel.open(log, StandardOpenOption.READ)) {
+            var map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int p = 0;
+            while (true) {
+                int bodyLen = recordLength(map, p);
+                if (bodyLen < 0) break;
+                JournalEntry e = decode(map, p + HEADER);
+                if (e.seq() > afterSeq) {
+                    apply.accept(e);
+                    lastSeq = Math.max(lastSeq, e.seq());
+                }
+                p += HEADER + bodyLen;
+            }
+        }
+        return lastSeq;
+    }
+
+    private static long validLength(Path log) throws IOException {
+        try (var in = FileChannel.open(log, StandardOpenOption.READ)) {
+            var map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int p = 0, len;
+            while ((len = recordLength(map, p)) >= 0) p += HEADER + len;
+            return p;
+        }
+    }
+
+    // длина тела целой записи на позиции p или -1 (конец файла, оборванная или битая запись)
+    private static int recordLength(ByteBuffer map, int p) {
+        if (p + HEADER > map.limit()) return -1;
+        int bodyLen = map.getInt(p);
+        if (bodyLen <= 0 || p + HEADER + bodyLen > map.limit()) return -1;
+        return map.getInt(p + Integer.BYTES) == crc(map, p + HEADER, bodyLen) ? bodyLen : -1;
+    }
+
+    private static JournalEntry decode(ByteBuffer map, int p) {
+        long seq = map.getLong(p);
+        byte type = map.get(p + 8);
+        int cartLen = Short.toUnsignedInt(map.getShort(p + 9));
+        String cart = utf8(map, p + 11, cartLen);
+        int codeAt = p + 11 + cartLen;
+        int codeLen = Short.toUnsignedInt(map.getShort(codeAt));
+        String code = utf8(map, codeAt + 2, codeLen);
+        return new JournalEntry(seq, type, cart, code, map.getInt(codeAt + 2 + codeLen));
+    }
+
+    private static String utf8(ByteBuffer map, int p, int len) {
+        byte[] bytes = new byte[len];
+        map.get(p, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer b, int offset, int len) {
+        var crc = new CRC32();
+        crc.update(b.slice(offset, len));
+        return (int) crc.getValue();
+    }
+}
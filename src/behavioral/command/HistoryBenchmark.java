@@ -0,0 +1,76 @@
+package behavioral.command;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+// Память на 1M команд и задержка undo: прежняя история (ArrayDeque всех команд) против
+// CommandInvoker (кольцо + сжатые блоки). Упрощённый прогон без JMH, память — по used после GC.
+public class HistoryBenchmark {
+    private static final int COMMANDS = 1_000_000, DEPTH = 1024;
+    private static final String[] CODES = new String[50];
+
+    public static void main(String[] args) {
+        for (int i = 0; i < CODES.length; i++) CODES[i] = "PRODUCT-" + i;
+
+        // без слияния: товар меняется каждую команду; со слиянием: серии по 10 одинаковых
+        for (int run : new int[] {1, 10}) {
+            long legacy = BenchmarkSupport.retained(() -> {
+                var history = new ArrayDeque<CartCommand>();
+                fill(run, c -> { c.execute(); history.push(c); });
+                return history;
+            });
+            var holder = new CommandInvoker[1];
+            long bounded = BenchmarkSupport.retained(() -> {
+                var invoker = new CommandInvoker(DEPTH, Long.MAX_VALUE, CartHistoryCodec.INSTANCE);
+                fill(run, invoker::run);
+                return holder[0] = invoker;
+            });
+            System.out.printf("series of %2d: legacy %6.1f MB (%5.1f B/cmd), invoker %5.2f MB (%4.2f B/cmd), "
+                            + "%d entries, %d KB compressed%n",
+                    run, legacy / 1048576.0, (double) legacy / COMMANDS, bounded / 1048576.0,
+                    (double) bounded / COMMANDS, holder[0].depth(), holder[0].coldBytes() >> 10);
+        }
+
+        for (int round = 1; round <= 3; round++) { // первые раунды — прогрев JIT
+            Deque<CartCommand> legacy = new ArrayDeque<>();
+            fill(1, c -> { c.execute(); legacy.push(c); });
+            report(round, "legacy", () -> {
+                CartCommand c = legacy.poll();
+                if (c != null) c.undo();
+                return c != null;
+            });
+            var invoker = new CommandInvoker(DEPTH, Long.MAX_VALUE, CartHistoryCodec.INSTANCE);
+            fill(1, invoker::run);
+            report(round, "invoker", () -> invoker.undoLast() != null);
+        }
+    }
+
+    private interface Sink { void accept(CartCommand c); }
+
+    private static void fill(int run, Sink sink) {
+        var cart = new ShoppingCart();
+        for (int i = 0; i < COMMANDS; i++) {
+            String code = CODES[(i / run) % CODES.length];
+            sink.accept(i % 3 == 2 ? new RemoveItemFromCart(cart, code, 1) : new AddItemToCart(cart, code, 1));
+        }
+    }
+
+    private interface Undo { boolean undo(); }
+
+    // задержка каждого undo до опустошения истории: хвост — разворачивание сжатых блоков
+    private static void report(int round, String name, Undo undo) {
+        long[] ns = new long[COMMANDS];
+        int n = 0;
+        long t0 = System.nanoTime();
+        while (true) {
+            long s = System.nanoTime();
+            if (!undo.undo()) break;
+            ns[n++] = System.nanoTime() - s;
+        }
+        long total = System.nanoTime() - t0;
+        Arrays.sort(ns, 0, n);
+        System.out.printf("round %d %-7s undo x%d: %5.1f ns/op, p50 %4d ns, p99 %5d ns, max %7d ns%n",
+                round, name, n, (double) total / n, ns[n / 2], ns[(int) (n * 0.99)], ns[n - 1]);
+    }
+}
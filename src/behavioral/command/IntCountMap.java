@@ -0,0 +1,92 @@
+package behavioral.command;
+
+import java.util.Arrays;
+
+// Открытая адресация int -> int без упаковки: два параллельных массива, линейное пробирование,
+// удаление со сдвигом назад. Рассчитано на маленькие корзины: стартует с 8 ячеек.
+final class IntCountMap {
+    private static final int FREE = -1; // ключи — неотрицательные id товаров
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntCountMap() {
+        keys = new int[8];
+        values = new int[8];
+        Arrays.fill(keys, FREE);
+    }
+
+    int get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? 0 : values[i];
+    }
+
+    void add(int key, int delta) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) { values[i] += delta; return; }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    void put(int key, int value) {
+        int i = indexOf(key);
+        if (i >= 0) values[i] = value;
+        else add(key, value);
+    }
+
+    void remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) return;
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == FREE) break;
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) { // перекладываем в дырку
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        size--;
+    }
+
+    int size() { return size; }
+
+    void forEach(IntBinaryConsumer action) {
+        for (int i = 0; i < keys.length; i++) if (keys[i] != FREE) action.accept(keys[i], values[i]);
+    }
+
+    @FunctionalInterface
+    interface IntBinaryConsumer { void accept(int key, int value); }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) if (oldKeys[i] != FREE) add(oldKeys[i], oldValues[i]);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
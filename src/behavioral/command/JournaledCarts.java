@@ -0,0 +1,194 @@
+package behavioral.command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+// Долговечные корзины: каждая команда сначала применяется к корзине, затем её эффект
+// уходит в журнал; future подтверждает, что эффект на диске. После рестарта корзины
+// собираются из последнего снимка и хвоста журнала. Снимок снимается сам каждые snapshotEvery
+// записей журнала, так что хвост для проигрывания при рестарте не растёт без предела.
+final class JournaledCarts implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x43415254; // "CART"
+    private static final long DEFAULT_SNAPSHOT_EVERY = 100_000;
+
+    private record Session(ShoppingCart cart, CommandInvoker invoker) {}
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final CommandJournal journal;
+    private final AtomicLong seq;
+    private final long snapshotEvery;
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    // команды идут параллельно под read-замком; снимок берёт write-замок,
+    // чтобы в нём не оказалось полупримененной команды
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    private JournaledCarts(CommandJournal journal, long lastSeq, long snapshotEvery) {
+        this.journal = journal;
+        this.seq = new AtomicLong(lastSeq);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    static JournaledCarts open(Path dir, int fsyncBatch) throws IOException {
+        return open(dir, fsyncBatch, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    static JournaledCarts open(Path dir, int fsyncBatch, long snapshotEvery) throws IOException {
+        if (snapshotEvery < 1) throw new IllegalArgumentException("snapshotEvery must be positive: " + snapshotEvery);
+        Files.createDirectories(dir);
+        var restored = new ConcurrentHashMap<String, Session>();
+        long snapSeq = readSnapshot(dir.resolve("carts.snap"), restored);
+        long lastSeq = CommandJournal.replay(dir, snapSeq,
+                e -> e.applyTo(restored.computeIfAbsent(e.cartId(), id -> newSession()).cart()));
+        var carts = new JournaledCarts(new CommandJournal(dir, fsyncBatch), lastSeq, snapshotEvery);
+        carts.sinceSnapshot.set(lastSeq - snapSeq); // хвост, проигранный при открытии, тоже ждёт снимка
+        carts.sessions.putAll(restored);
+        return carts;
+    }
+
+    ShoppingCart cart(String cartId) { return session(cartId).cart(); }
+
+    // Команда строится под конкретную корзину: run("c1", cart -> new AddItemToCart(cart, "PRODUCT-APPLE", 2))
+    CompletableFuture<Void> run(String cartId, Function<ShoppingCart, CartCommand> factory) {
+        var s = session(cartId);
+        CompletableFuture<Void> durable;
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (s) { // порядок записей одной корзины в журнале = порядок применения
+                var command = requireJournaled(factory.apply(s.cart())); // до run: корзина ещё не тронута
+                s.invoker().run(command);
+                durable = journal.append(effectOf(cartId, command, false));
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        return appended(durable);
+    }
+
+    CompletableFuture<Void> undoLast(String cartId) {
+        var s = session(cartId);
+        CompletableFuture<Void> durable;
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (s) {
+                // в истории только команды, прошедшие requireJournaled в run, — у каждой есть эффект
+                var undone = s.invoker().undoLast();
+                if (undone == null) return CompletableFuture.completedFuture(null);
+                durable = journal.append(effectOf(cartId, undone, true));
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        return appended(durable);
+    }
+
+    // Снимок всех корзин; журнал после него обрезается
+    CompletableFuture<Void> checkpoint() {
+        checkpointLock.writeLock().lock();
+        try {
+            sinceSnapshot.set(0);
+            return journal.checkpoint(encodeSnapshot(seq.get()));
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override public void close() throws IOException { journal.close(); }
+
+    private Session session(String cartId) {
+        var s = sessions.get(cartId);
+        if (s != null) return s;
+        CommandJournal.requireFits(cartId); // id корзины уйдёт в каждую её запись журнала
+        return sessions.computeIfAbsent(cartId, id -> newSession());
+    }
+
+    private static Session newSession() { return new Session(new ShoppingCart(), new CommandInvoker(CartHistoryCodec.INSTANCE)); }
+
+    // запись, добравшая счётчик до snapshotEvery, сама запускает снимок — уже отпустив read-замок
+    private CompletableFuture<Void> appended(CompletableFuture<Void> durable) {
+        if (sinceSnapshot.incrementAndGet() == snapshotEvery) checkpoint();
+        return durable;
+    }
+
+    // журналируются только команды с эффектом над одной корзиной и с кодом, который влезет в запись
+    private static CartCommand requireJournaled(CartCommand c) {
+        if (c instanceof AddItemToCart a) CommandJournal.requireFits(a.productCode());
+        else if (c instanceof RemoveItemFromCart r) CommandJournal.requireFits(r.productCode());
+        else throw new IllegalArgumentException("command is not journaled: " + c.getClass().getSimpleName());
+        return c;
+    }
+
+    // В журнал пишем эффект, а не намерение: для снятия — сколько сняли на самом деле
+    private JournalEntry effectOf(String cartId, CartCommand c, boolean undo) {
+        long n = seq.incrementAndGet();
+        if (c instanceof AddItemToCart a) {
+            return new JournalEntry(n, undo ? JournalEntry.REMOVE : JournalEntry.ADD, cartId, a.productCode(), a.count());
+        }
+        var r = (RemoveItemFromCart) c; // прочее отсечено requireJournaled
+        return new JournalEntry(n, undo ? JournalEntry.ADD : JournalEntry.REMOVE, cartId, r.productCode(), r.actuallyRemoved());
+    }
+
+    // --- снимок: [int magic][long seq][int carts]{[utf cartId][int items]{[utf code][int count]}}[long crc] ---
+
+    private byte[] encodeSnapshot(long upToSeq) {
+        try {
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(upToSeq);
+            var entries = List.copyOf(sessions.entrySet()); // новые пустые корзины могут появляться и сейчас
+            out.writeInt(entries.size());
+            for (var e : entries) {
+                out.writeUTF(e.getKey());
+                var cart = e.getValue().cart();
+                out.writeInt(cart.size());
+                cart.forEachItem((code, count) -> {
+                    try {
+                        out.writeUTF(code);
+                        out.writeInt(count);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            var crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long readSnapshot(Path file, Map<String, Session> into) throws IOException {
+        if (!Files.exists(file)) return 0;
+        byte[] all = Files.readAllBytes(file);
+        var crc = new CRC32();
+        crc.update(all, 0, all.length - Long.BYTES);
+        var in = new DataInputStream(new ByteArrayInputStream(all));
+        if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("not a cart snapshot: " + file);
+        long upToSeq = in.readLong();
+        int carts = in.readInt();
+        for (int i = 0; i < carts; i++) {
+            var s = newSession();
+            into.put(in.readUTF(), s);
+            int items = in.readInt();
+            for (int j = 0; j < items; j++) s.cart().addItem(in.readUTF(), in.readInt());
+        }
+        if (in.readLong() != crc.getValue()) throw new IOException("corrupt cart snapshot: " + file);
+        return upToSeq;
+    }
+}
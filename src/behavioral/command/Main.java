@@ -1,29 +1,38 @@
 package behavioral.command;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ObjIntConsumer;
 
 // Получатель (Receiver): корзина
 final class ShoppingCart {
-    // productCode -> count
-    private final Map<String, Integer> items = new LinkedHashMap<>();
+    // id товара (см. ProductCodes) -> count, без упаковки в Integer
+    private final IntCountMap items = new IntCountMap();
 
     void addItem(String productCode, int count) {
-        items.merge(productCode, count, Integer::sum);
+        items.add(ProductCodes.intern(productCode), count);
     }
 
     void removeItem(String productCode, int count) {
-        int currentCount = items.getOrDefault(productCode, 0);
+        int id = ProductCodes.find(productCode);
+        if (id == ProductCodes.UNKNOWN) return;
+        int currentCount = items.get(id);
         int nextCount = Math.max(0, currentCount - count);
 
-        if (nextCount == 0) items.remove(productCode);
-        else items.put(productCode, nextCount);
+        if (nextCount == 0) items.remove(id);
+        else items.put(id, nextCount);
     }
 
     int countOf(String productCode) {
-        return items.getOrDefault(productCode, 0);
+        int id = ProductCodes.find(productCode);
+        return id == ProductCodes.UNKNOWN ? 0 : items.get(id);
+    }
+
+    int size() { return items.size(); }
+
+    void forEachItem(ObjIntConsumer<String> action) {
+        items.forEach((id, count) -> action.accept(ProductCodes.codeOf(id), count));
     }
 }
 
@@ -31,6 +40,10 @@ final class ShoppingCart {
 interface CartCommand {
     void execute();
     void undo();
+
+    // Обе команды уже выполнены; если next можно слить с this в одну запись истории —
+    // вернуть объединённую команду, иначе null
+    default CartCommand coalesce(CartCommand next) { return null; }
 }
 
 // Конкретные команды
@@ -42,6 +55,12 @@ record AddItemToCart(ShoppingCart cart, String productCode, int count) implement
     @Override public void undo() {
         cart.removeItem(productCode, count); // по учебному просто
     }
+
+    // десять «+1 яблоко» подряд — одна запись «+10 яблок»
+    @Override public CartCommand coalesce(CartCommand next) {
+        return next instanceof AddItemToCart a && a.cart == cart && a.productCode.equals(productCode)
+                ? new AddItemToCart(cart, productCode, count + a.count) : null;
+    }
 }
 
 final class RemoveItemFromCart implements CartCommand {
@@ -67,28 +86,29 @@ final class RemoveItemFromCart implements CartCommand {
             cart.addItem(productCode, actuallyRemoved);
         }
     }
-}
-
-// Инициатор (Invoker): выполняет команды и хранит историю для undo
-final class CommandInvoker {
-    private final Deque<CartCommand> historyStack = new ArrayDeque<>();
 
-    void run(CartCommand command) {
-        command.execute();
-        historyStack.push(command);
+    // уже выполненное снятие: для слияния и восстановления из сжатой истории
+    static RemoveItemFromCart executed(ShoppingCart cart, String productCode, int removed) {
+        var r = new RemoveItemFromCart(cart, productCode, removed);
+        r.actuallyRemoved = removed;
+        return r;
     }
 
-    void undoLast() {
-        CartCommand command = historyStack.poll();
-        if (command != null) command.undo();
+    @Override public CartCommand coalesce(CartCommand next) {
+        return next instanceof RemoveItemFromCart r && r.cart == cart && r.productCode.equals(productCode)
+                ? executed(cart, productCode, actuallyRemoved + r.actuallyRemoved) : null;
     }
+
+    ShoppingCart cart() { return cart; }
+    String productCode() { return productCode; }
+    int actuallyRemoved() { return actuallyRemoved; }
 }
 
 // Клиент
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         var cart = new ShoppingCart();
-        var invoker = new CommandInvoker();
+        var invoker = new CommandInvoker(CartHistoryCodec.INSTANCE);
 
         // +2 яблока
         invoker.run(new AddItemToCart(cart, "PRODUCT-APPLE", 2));
@@ -104,5 +124,39 @@ public class Main {
         invoker.run(new RemoveItemFromCart(cart, "PRODUCT-MILK", 5));
         // вернёт ровно 1
         invoker.undoLast();
+
+        // История: десять «+1» сливаются в одну запись, есть метки, транзакции и redo
+        invoker.mark("before-promo");
+        for (int i = 0; i < 10; i++) invoker.run(new AddItemToCart(cart, "PRODUCT-APPLE", 1));
+        invoker.begin();
+        invoker.run(new AddItemToCart(cart, "PRODUCT-MILK", 2));
+        invoker.run(new RemoveItemFromCart(cart, "PRODUCT-APPLE", 3));
+        invoker.commit();
+        invoker.undoLast(); // откатит транзакцию целиком
+        invoker.redo();     // и вернёт её
+        System.out.println("Отменено до метки: " + invoker.undoTo("before-promo")); // 2
+        System.out.println("Яблок после отката: " + cart.countOf("PRODUCT-APPLE")); // 2
+
+        // Долговечные корзины: команды журналируются, после «рестарта» корзина восстанавливается
+        Path dir = Files.createTempDirectory("carts");
+        try (var carts = JournaledCarts.open(dir, 64)) {
+            carts.run("cart-1", c -> new AddItemToCart(c, "PRODUCT-APPLE", 3));
+            carts.checkpoint(); // снимок + обрезка журнала
+            carts.run("cart-1", c -> new RemoveItemFromCart(c, "PRODUCT-APPLE", 1)).join();
+        }
+        try (var restarted = JournaledCarts.open(dir, 64)) {
+            System.out.println("Яблок после рестарта: " + restarted.cart("cart-1").countOf("PRODUCT-APPLE")); // 2
+        }
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) Files.delete(f);
+        }
+        Files.delete(dir);
+
+        // Много корзин параллельно: каждая принадлежит одному шарду, команды — через futures
+        try (var engine = new CartEngine(Runtime.getRuntime().availableProcessors())) {
+            engine.run("cart-2", c -> new AddItemToCart(c, "PRODUCT-MILK", 2));
+            engine.run("cart-2", c -> new RemoveItemFromCart(c, "PRODUCT-MILK", 1));
+            System.out.println("Молока в cart-2: " + engine.countOf("cart-2", "PRODUCT-MILK").join()); // 1
+        }
     }
 }
@@ -0,0 +1,44 @@
+package behavioral.command;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Общий словарь кодов товаров: "PRODUCT-APPLE" -> 0, "PRODUCT-MILK" -> 1, ...
+// Строка кода хранится один раз на процесс, корзины держат только int.
+// Поиск уже известного кода не аллоцирует: get() отдаёт закешированный Integer.
+final class ProductCodes {
+    static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] codes = new String[64]; // id -> код, растёт под замком
+    private static int next;
+
+    private ProductCodes() {}
+
+    // id кода; новый код регистрируется
+    static int intern(String code) {
+        Integer id = ids.get(code);
+        return id != null ? id : register(code);
+    }
+
+    // id кода или UNKNOWN — без регистрации (для чтения и снятия)
+    static int find(String code) {
+        Integer id = ids.get(code);
+        return id != null ? id : UNKNOWN;
+    }
+
+    static String codeOf(int id) { return codes[id]; }
+
+    private static synchronized int register(String code) {
+        Integer id = ids.get(code);
+        if (id != null) return id;
+        int assigned = next++;
+        String[] arr = codes;
+        if (assigned == arr.length) arr = Arrays.copyOf(arr, assigned * 2);
+        arr[assigned] = code;
+        codes = arr;             // volatile-запись публикует массив раньше, чем id станет виден в ids
+        ids.put(code, assigned);
+        return assigned;
+    }
+}
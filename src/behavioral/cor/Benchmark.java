@@ -0,0 +1,59 @@
+package behavioral.cor;
+
+// Замер: связная цепочка против скомпилированного диспетчера на длинах 3, 10 и 50.
+// Упрощённый прогон на System.nanoTime (без JMH): прогрев, затем замер, результат
+// «съедается» в checksum, чтобы JIT не выбросил вызовы.
+public class Benchmark {
+    private static final int OPS = 5_000_000;
+
+    public static void main(String[] args) {
+        Ticket[] tickets = new Ticket[1024];
+        Severity[] sev = Severity.values();
+        for (int i = 0; i < tickets.length; i++) {
+            tickets[i] = new Ticket("t" + i, sev[(i * 7) % sev.length], i % 5 == 0);
+        }
+
+        for (int length : new int[]{3, 10, 50}) {
+            Handler linked = chain(length), compiled = ChainBuilder.of(linked).compile();
+            run(linked, tickets); run(compiled, tickets); // прогрев
+            System.out.printf("length %2d: linked %6.1f ns/op, compiled %6.1f ns/op%n",
+                    length, run(linked, tickets), run(compiled, tickets));
+        }
+    }
+
+    // Узкая линия поддержки: берёт тикеты одной важности
+    private static final class Line extends AbstractHandler {
+        private final Severity only;
+        private final Result.Handled answer;
+
+        Line(Severity only, Result.Handled answer, Handler next) {
+            super(next);
+            this.only = only;
+            this.answer = answer;
+        }
+
+        public Result tryHandle(Ticket t) { return t.severity() == only ? answer : Result.UNHANDLED; }
+        public Acceptance accepts(boolean inFAQ, Severity s) { return s == only ? Acceptance.ALWAYS : Acceptance.NEVER; }
+        public Result constant() { return answer; }
+    }
+
+    // FAQ-бот, (length - 2) узких линий по одной важности и терминатор R&D
+    private static Handler chain(int length) {
+        Severity[] sev = Severity.values();
+        Handler next = new RnD();
+        for (int i = length - 3; i >= 0; i--) {
+            Severity only = sev[i % (sev.length - 1)]; // CRITICAL доходит до терминатора
+            next = new Line(only, new Result.Handled("Линия " + i), next);
+        }
+        return new Bot(next);
+    }
+
+    private static double run(Handler h, Ticket[] tickets) {
+        int checksum = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < OPS; i++) checksum += h.handle(tickets[i & 1023]).hashCode();
+        long elapsed = System.nanoTime() - t0;
+        if (checksum == 42) System.out.print("");
+        return (double) elapsed / OPS;
+    }
+}
@@ -0,0 +1,92 @@
+package behavioral.cor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Насколько шаг готов принять тикет с данным флагом FAQ и важностью
+enum Acceptance { ALWAYS, NEVER, MAYBE }
+
+// Решение одного обработчика без передачи дальше: кто идёт следом, решает цепочка или сборщик
+interface Step {
+    Result tryHandle(Ticket t); // Result.UNHANDLED — не мой тикет
+
+    // что известно о шаге заранее, до разбора остального содержимого тикета
+    default Acceptance accepts(boolean inFAQ, Severity severity) { return Acceptance.MAYBE; }
+
+    // ответ шага, если он не зависит от содержимого тикета; null — зависит
+    default Result constant() { return null; }
+}
+
+// Сборщик: шаги берутся из готовой цепочки обработчиков (их же экземпляры, без копии логики)
+// и собираются в «скомпилированный» диспетчер или пакетный маршрутизатор
+final class ChainBuilder {
+    private final List<Step> steps = new ArrayList<>();
+
+    // звенья AbstractHandler — шагами по порядку; чужой хвост цепочки — одним шагом целиком
+    static ChainBuilder of(Handler head) {
+        var b = new ChainBuilder();
+        Handler h = head;
+        while (h instanceof AbstractHandler a) {
+            b.then(a);
+            h = a.next();
+        }
+        if (h != null) {
+            Handler tail = h;
+            b.then(tail::handle);
+        }
+        return b;
+    }
+
+    ChainBuilder then(Step s) { steps.add(s); return this; }
+
+    Handler compile() { return new CompiledChain(steps.toArray(Step[]::new)); }
+
+    TicketRouter router() { return new TicketRouter(steps); }
+}
+
+// Плоский диспетчер: для каждой пары (inFAQ, severity) заранее вычислены шаги-кандидаты.
+// Если первый кандидат берёт тикет безусловно и отвечает константой — ответ лежит в таблице,
+// и handle() сводится к одному чтению массива. Иначе — плотный цикл без виртуальных forward().
+final class CompiledChain implements Handler {
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private final Step[][] candidates; // [key] -> шаги, которые не отвергают тикет заранее
+    private final Result[] answers;    // [key] -> готовый ответ или null
+
+    CompiledChain(Step[] steps) {
+        int keys = 2 * SEVERITIES.length;
+        this.candidates = new Step[keys][];
+        this.answers = new Result[keys];
+        for (int faq = 0; faq < 2; faq++) {
+            for (Severity s : SEVERITIES) {
+                int key = key(faq == 1, s);
+                var list = new ArrayList<Step>();
+                for (Step step : steps) {
+                    var a = step.accepts(faq == 1, s);
+                    if (a == Acceptance.NEVER) continue;
+                    list.add(step);
+                    if (a == Acceptance.ALWAYS) break; // дальше этого шага тикет не уйдёт
+                }
+                candidates[key] = list.toArray(Step[]::new);
+                answers[key] = list.isEmpty() ? Result.UNHANDLED : constantAnswer(list.get(0), faq == 1, s);
+            }
+        }
+    }
+
+    @Override public Result handle(Ticket t) {
+        int key = key(t.inFAQ(), t.severity());
+        Result r = answers[key];
+        if (r != null) return r;
+        for (Step step : candidates[key]) {
+            r = step.tryHandle(t);
+            if (r != Result.UNHANDLED) return r;
+        }
+        return Result.UNHANDLED;
+    }
+
+    private static int key(boolean inFAQ, Severity s) { return (inFAQ ? SEVERITIES.length : 0) + s.ordinal(); }
+
+    private static Result constantAnswer(Step first, boolean inFAQ, Severity s) {
+        return first.accepts(inFAQ, s) == Acceptance.ALWAYS ? first.constant() : null;
+    }
+}
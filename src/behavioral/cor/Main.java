@@ -1,10 +1,14 @@
 package behavioral.cor;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 sealed interface Result permits Result.Handled, Result.Unhandled {
     record Handled(String message) implements Result {}
-    final class Unhandled implements Result {}
+    final class Unhandled implements Result { private Unhandled() {} }
+
+    // Результаты без состояния — один экземпляр на всё приложение, без аллокаций на тикет
+    Unhandled UNHANDLED = new Unhandled();
 }
 
 record Ticket(String subject, Severity severity, boolean inFAQ) {}
@@ -12,50 +16,80 @@ enum Severity { LOW, MID, HIGH, CRITICAL }
 
 interface Handler { Result handle(Ticket t); }
 
-abstract class AbstractHandler implements Handler {
+// Звено: своё решение — в tryHandle (это же шаг для ChainBuilder), остальное уходит дальше
+abstract class AbstractHandler implements Handler, Step {
     private final Handler next;
     protected AbstractHandler(Handler next) { this.next = next; }
-    protected Result forward(Ticket t) { return next == null ? new Result.Unhandled() : next.handle(t); }
+
+    @Override public final Result handle(Ticket t) {
+        Result r = tryHandle(t);
+        return r != Result.UNHANDLED ? r : forward(t);
+    }
+
+    protected Result forward(Ticket t) { return next == null ? Result.UNHANDLED : next.handle(t); }
+
+    Handler next() { return next; }
 }
 
 // 1) Бот: отвечает по FAQ
 final class Bot extends AbstractHandler {
+    static final Result.Handled ANSWERED = new Result.Handled("Бот: ответил по FAQ");
     Bot(Handler next) { super(next); }
-    public Result handle(Ticket t) {
-        return t.inFAQ() ? new Result.Handled("Бот: ответил по FAQ") : forward(t);
-    }
+    public Result tryHandle(Ticket t) { return t.inFAQ() ? ANSWERED : Result.UNHANDLED; }
+    public Acceptance accepts(boolean inFAQ, Severity s) { return inFAQ ? Acceptance.ALWAYS : Acceptance.NEVER; }
+    public Result constant() { return ANSWERED; }
 }
 
 // 2) L1: берёт простые
 final class L1 extends AbstractHandler {
+    static final Result.Handled SOLVED = new Result.Handled("L1: решено");
     L1(Handler next) { super(next); }
-    public Result handle(Ticket t) {
-        return (t.severity().ordinal() <= Severity.MID.ordinal())
-                ? new Result.Handled("L1: решено")
-                : forward(t);
-    }
+    public Result tryHandle(Ticket t) { return takes(t.severity()) ? SOLVED : Result.UNHANDLED; }
+    public Acceptance accepts(boolean inFAQ, Severity s) { return takes(s) ? Acceptance.ALWAYS : Acceptance.NEVER; }
+    public Result constant() { return SOLVED; }
+
+    private static boolean takes(Severity s) { return s.ordinal() <= Severity.MID.ordinal(); }
 }
 
 // 3) R&D: последний (можно убрать, тогда допустим Unhandled)
 final class RnD extends AbstractHandler {
+    static final Result.Handled TAKEN = new Result.Handled("Эскалация в R&D: взяли в работу");
     RnD() { super(null); }
-    public Result handle(Ticket t) { return new Result.Handled("Эскалация в R&D: взяли в работу"); }
+    public Result tryHandle(Ticket t) { return TAKEN; }
+    public Acceptance accepts(boolean inFAQ, Severity s) { return Acceptance.ALWAYS; }
+    public Result constant() { return TAKEN; }
 }
 
 public class Main {
     public static void main(String[] args) {
         Handler chain = new Bot(new L1(new RnD()));
 
+        // те же обработчики, собранные в плоский диспетчер: ответ ищется по (inFAQ, severity)
+        var support = ChainBuilder.of(chain);
+        Handler compiled = support.compile();
+
         for (var t : List.of(
                 new Ticket("Как сменить пароль?", Severity.LOW, true),
                 new Ticket("Смена тарифа", Severity.MID, false),
                 new Ticket("Падает прод", Severity.CRITICAL, false))) {
 
-            var r = chain.handle(t);
-            switch (r) {
+            switch (compiled.handle(t)) {
                 case Result.Handled h -> System.out.println(h.message());
                 case Result.Unhandled u -> System.out.println("Некому обработать");
             }
         }
+
+        // Пакетная маршрутизация на fork-join пуле + метрики по обработчикам
+        var router = support.router();
+        var severities = Severity.values();
+        var batch = IntStream.range(0, 100_000)
+                .mapToObj(i -> new Ticket("#" + i, severities[i % severities.length], i % 3 == 0))
+                .toList();
+        var results = router.routeAll(batch); // порядок совпадает с batch
+        System.out.println("Обработано: " + results.size());
+        for (var h : router.snapshot().handlers()) {
+            System.out.printf("%s handled=%d forwarded=%d p99<=%dns%n",
+                    h.name(), h.handled(), h.forwarded(), h.latency().percentile(0.99));
+        }
     }
 }
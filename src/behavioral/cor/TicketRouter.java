@@ -0,0 +1,112 @@
+package behavioral.cor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+// Гистограмма задержек: корзина i — от 2^(i-1) до 2^i наносекунд
+record LatencyHistogram(long[] buckets) {
+    long count() {
+        long n = 0;
+        for (long b : buckets) n += b;
+        return n;
+    }
+
+    // верхняя граница корзины, в которую попал p-й перцентиль (в наносекундах)
+    long percentile(double p) {
+        long target = (long) Math.ceil(count() * p), seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target && seen > 0) return 1L << i;
+        }
+        return 0;
+    }
+}
+
+// Снимок метрик одного обработчика
+record HandlerStats(String name, long handled, long forwarded, LatencyHistogram latency) {}
+
+// Снимок метрик всего маршрутизатора; unhandled — тикеты, прошедшие цепочку насквозь
+record RoutingStats(List<HandlerStats> handlers, long unhandled) {}
+
+// Пакетная маршрутизация: тикеты идут через те же шаги цепочки на fork-join пуле,
+// по каждому шагу считаются взятые/переданные дальше и гистограмма времени шага
+final class TicketRouter {
+    private static final int BUCKETS = 40; // до ~9 минут — с запасом
+
+    private final Step[] steps;
+    private final Metrics[] metrics;
+    private final LongAdder unhandled = new LongAdder();
+    private final ForkJoinPool pool;
+
+    private static final class Metrics {
+        final String name;
+        final LongAdder handled = new LongAdder();
+        final LongAdder forwarded = new LongAdder();
+        final LongAdder[] latency = new LongAdder[BUCKETS];
+
+        Metrics(String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKETS; i++) latency[i] = new LongAdder();
+        }
+
+        void record(long nanos) {
+            latency[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        }
+    }
+
+    TicketRouter(List<Step> steps, ForkJoinPool pool) {
+        this.steps = steps.toArray(Step[]::new);
+        this.metrics = new Metrics[this.steps.length];
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = new Metrics(i + ":" + this.steps[i].getClass().getSimpleName());
+        }
+        this.pool = pool;
+    }
+
+    TicketRouter(List<Step> steps) { this(steps, ForkJoinPool.commonPool()); }
+
+    Result route(Ticket t) {
+        for (int i = 0; i < steps.length; i++) {
+            long start = System.nanoTime();
+            Result r = steps[i].tryHandle(t);
+            metrics[i].record(System.nanoTime() - start);
+            if (r != Result.UNHANDLED) {
+                metrics[i].handled.increment();
+                return r;
+            }
+            metrics[i].forwarded.increment();
+        }
+        unhandled.increment();
+        return Result.UNHANDLED;
+    }
+
+    // Пакет: результаты в порядке входных тикетов
+    List<Result> routeAll(List<Ticket> batch) {
+        return pool.submit(() -> batch.parallelStream().map(this::route).toList()).join();
+    }
+
+    // Поток: ordered = false отдаёт результаты по мере готовности (sink должен быть потокобезопасен)
+    void routeAll(Stream<Ticket> tickets, BiConsumer<Ticket, Result> sink, boolean ordered) {
+        pool.submit(() -> {
+            var parallel = tickets.parallel();
+            // маршрут — параллельно в map, forEachOrdered только отдаёт готовые пары по порядку
+            if (ordered) parallel.map(t -> Map.entry(t, route(t))).forEachOrdered(e -> sink.accept(e.getKey(), e.getValue()));
+            else parallel.unordered().forEach(t -> sink.accept(t, route(t)));
+        }).join();
+    }
+
+    RoutingStats snapshot() {
+        var handlers = new ArrayList<HandlerStats>(metrics.length);
+        for (Metrics m : metrics) {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) buckets[i] = m.latency[i].sum();
+            handlers.add(new HandlerStats(m.name, m.handled.sum(), m.forwarded.sum(), new LatencyHistogram(buckets)));
+        }
+        return new RoutingStats(List.copyOf(handlers), unhandled.sum());
+    }
+}
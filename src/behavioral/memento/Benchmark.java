@@ -0,0 +1,95 @@
+package behavioral.memento;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Чекпоинт на каждое нажатие: прежний редактор (StringBuilder + копия строки в снимке) против
+// TextEditor на кусках. Упрощённый прогон без JMH: время — nanoTime, память истории — used после GC.
+public class Benchmark {
+    private static final int[] SIZES = {10_000, 1_000_000, 10_000_000};
+    private static final long LEGACY_BUDGET = 512L << 20; // прежний редактор копирует документ в каждый снимок
+
+    // прежняя реализация — только для сравнения
+    private static final class LegacyEditor {
+        private StringBuilder buf = new StringBuilder();
+        void append(String s) { buf.append(s); }
+        void deleteLast(int n) { buf.setLength(Math.max(0, buf.length() - Math.max(0, n))); }
+        String text() { return buf.toString(); }
+        String save() { return buf.toString(); }
+        void restore(String m) { buf = new StringBuilder(m); }
+    }
+
+    private interface Editor {
+        void append(String s);
+        void deleteLast(int n);
+        String text();
+        Object save();
+        void restore(Object m);
+    }
+
+    private static Editor legacy() {
+        var e = new LegacyEditor();
+        return new Editor() {
+            public void append(String s) { e.append(s); }
+            public void deleteLast(int n) { e.deleteLast(n); }
+            public String text() { return e.text(); }
+            public Object save() { return e.save(); }
+            public void restore(Object m) { e.restore((String) m); }
+        };
+    }
+
+    private static Editor pieces() {
+        var e = new TextEditor();
+        return new Editor() {
+            public void append(String s) { e.append(s); }
+            public void deleteLast(int n) { e.deleteLast(n); }
+            public String text() { return e.text(); }
+            public Object save() { return e.save(); }
+            public void restore(Object m) { e.restore((TextEditor.Memento) m); }
+        };
+    }
+
+    public static void main(String[] args) {
+        for (int round = 1; round <= 2; round++) { // первый раунд — прогрев JIT
+            for (int size : SIZES) {
+                int keystrokes = (int) Math.min(2_000, LEGACY_BUDGET / size);
+                run(round, "legacy", size, keystrokes, legacy());
+                run(round, "pieces", size, keystrokes, pieces());
+            }
+        }
+    }
+
+    private static void run(int round, String name, int size, int keystrokes, Editor editor) {
+        String line = "lorem ipsum dolor sit amet, consectetur adipiscing elit\n";
+        for (int n = 0; n < size; n += line.length()) editor.append(line);
+        Deque<Object> history = new ArrayDeque<>(keystrokes);
+
+        long before = usedAfterGc();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < keystrokes; i++) {
+            if (i % 10 == 9) editor.deleteLast(1); // опечатка
+            else editor.append("x");
+            history.push(editor.save());
+        }
+        long editNs = System.nanoTime() - t0;
+        long retained = usedAfterGc() - before;
+
+        long t1 = System.nanoTime();
+        long chars = 0;
+        while (!history.isEmpty()) {
+            editor.restore(history.pop());
+            chars += editor.text().length();
+        }
+        long restoreNs = System.nanoTime() - t1;
+
+        System.out.printf("round %d %-6s %,11d chars x%4d: edit+save %,10d ns, restore+text %,10d ns, history %,11d B/checkpoint (%d)%n",
+                round, name, size, keystrokes, editNs / keystrokes, restoreNs / keystrokes,
+                retained / keystrokes, chars % 10);
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        var rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,61 @@
+package behavioral.memento;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Задержка restore на каждом ярусе CheckpointStore: снимок в куче, сжатый в куче, на диске.
+// Документы по 50 тысяч символов, поэтому WARM — сжатые байты: restore с него платит за inflate.
+// Упрощённый прогон без JMH: nanoTime на каждый pop + text().
+public class CheckpointBenchmark {
+    private static final int DOCUMENTS = 1_000, CHECKPOINTS = 8, DOC_CHARS = 50_000;
+
+    public static void main(String[] args) throws IOException {
+        String line = "lorem ipsum dolor sit amet, consectetur adipiscing elit\n";
+        for (int round = 1; round <= 2; round++) { // первый раунд — прогрев JIT
+            Path dir = Files.createTempDirectory("checkpoints-bench");
+            int total = DOCUMENTS * CHECKPOINTS;
+            try (var store = new CheckpointStore(dir, total / 4, total / 4, 64 << 20, CheckpointStore.Retention.keepAll())) {
+                long t0 = System.nanoTime();
+                for (int d = 0; d < DOCUMENTS; d++) {
+                    var editor = new TextEditor();
+                    for (int n = 0; n < DOC_CHARS; n += line.length()) editor.append(line);
+                    for (int c = 0; c < CHECKPOINTS; c++) {
+                        editor.append("edit " + c + " of doc " + d + "\n");
+                        store.push("doc-" + d, editor.save());
+                    }
+                }
+                long pushNs = System.nanoTime() - t0;
+                System.out.printf("round %d push x%d: %,d ns/op, %d segment(s)%n", round, total, pushNs / total, store.segments());
+
+                // самые свежие чекпоинты — в куче, самые старые — на диске; снимаем всё по документам
+                Map<CheckpointStore.Tier, List<Long>> latency = new EnumMap<>(CheckpointStore.Tier.class);
+                var editor = new TextEditor();
+                long chars = 0;
+                for (int d = DOCUMENTS - 1; d >= 0; d--) {
+                    String id = "doc-" + d;
+                    while (store.size(id) > 0) {
+                        var tier = store.peekTier(id);
+                        long s = System.nanoTime();
+                        editor.restore(store.pop(id));
+                        chars += editor.text().length();
+                        latency.computeIfAbsent(tier, t -> new ArrayList<>()).add(System.nanoTime() - s);
+                    }
+                }
+                for (var e : latency.entrySet()) {
+                    var tier = e.getKey();
+                    var ns = e.getValue();
+                    ns.sort(null);
+                    System.out.printf("round %d restore %-4s x%5d: p50 %,9d ns, p99 %,9d ns%n",
+                            round, tier, ns.size(), ns.get(ns.size() / 2), ns.get((int) (ns.size() * 0.99)));
+                }
+                if (chars == 42) System.out.print("");
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package behavioral.memento;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Хранитель (Caretaker) для многих документов: у каждого свой стек чекпоинтов.
+// Самые свежие hotLimit снимков (по всем документам) лежат в куче как есть, следующие warmLimit —
+// сжатыми байтами в куче (ссылка на снимок держит весь его буфер символов; совсем мелкие снимки
+// остаются ссылками — deflate их не уменьшит), остальные дописываются в memory-mapped сегменты
+// на диске теми же сжатыми байтами и читаются лениво при pop(). Сегменты, где живых записей меньше половины,
+// уплотняются. Просроченные по retention.maxAge забываются при каждом push/pop.
+// Файлы — только место для вытеснения: индекс в памяти, при close() сегменты удаляются.
+final class CheckpointStore implements AutoCloseable {
+    enum Tier { HOT, WARM, COLD }
+
+    // Сколько чекпоинтов держать на документ и сколько им жить; старшие сверх лимита забываются
+    record Retention(int maxPerDocument, Duration maxAge) {
+        static Retention keepAll() { return new Retention(Integer.MAX_VALUE, null); }
+    }
+
+    private static final int HEADER = 2 * Integer.BYTES; // [int len][int crc]
+    private static final int PACK_MIN = 256; // ссылка дешевле: заголовок deflate и массив съедят выигрыш
+
+    private static final class Entry {
+        final String docId;
+        final long createdAt = System.currentTimeMillis();
+        Tier tier = Tier.HOT;
+        TextEditor.Memento memento; // HOT; WARM, если снимок мельче PACK_MIN
+        byte[] packed;              // WARM
+        Segment segment;            // COLD: [offset, offset + HEADER + length)
+        int offset, length;
+        boolean dead;
+
+        Entry(String docId) { this.docId = docId; }
+    }
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel ch;
+        final MappedByteBuffer map;
+        final List<Entry> entries = new ArrayList<>();
+        int position;
+        long liveBytes;
+
+        Segment(Path path, int capacity) throws IOException {
+            this.path = path;
+            this.ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.map = ch.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    private final Path dir;
+    private final int hotLimit, warmLimit, segmentBytes;
+    private final Retention retention;
+    private final Map<String, Deque<Entry>> documents = new HashMap<>(); // last — самый свежий чекпоинт
+    private final Deque<Entry> hot = new ArrayDeque<>();  // в порядке поступления; мёртвые пропускаются
+    private final Deque<Entry> warm = new ArrayDeque<>();
+    private final Deque<Entry> byAge = new ArrayDeque<>(); // все записи в порядке push — только при maxAge
+    private final List<Segment> sealed = new ArrayList<>();
+    private Segment active;
+    private int hotCount, warmCount, nextSegment;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+
+    CheckpointStore(Path dir, int hotLimit, int warmLimit, int segmentBytes, Retention retention) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.hotLimit = hotLimit;
+        this.warmLimit = warmLimit;
+        this.segmentBytes = segmentBytes;
+        this.retention = retention;
+    }
+
+    synchronized void push(String docId, TextEditor.Memento m) {
+        expire();
+        var e = new Entry(docId);
+        e.memento = m;
+        if (retention.maxAge() != null) byAge.addLast(e);
+        var stack = documents.computeIfAbsent(docId, id -> new ArrayDeque<>());
+        stack.addLast(e);
+        hot.addLast(e);
+        hotCount++;
+        while (stack.size() > retention.maxPerDocument()) kill(stack.pollFirst());
+        demote();
+    }
+
+    // Снимок последнего чекпоинта документа (с диска — прочитается и распакуется), null — истории нет
+    synchronized TextEditor.Memento pop(String docId) {
+        expire();
+        var stack = documents.get(docId);
+        if (stack == null || stack.isEmpty()) return null;
+        var e = stack.pollLast();
+        var m = load(e);
+        kill(e);
+        if (stack.isEmpty()) documents.remove(docId);
+        return m;
+    }
+
+    synchronized Tier peekTier(String docId) {
+        var stack = documents.get(docId);
+        return stack == null || stack.isEmpty() ? null : stack.peekLast().tier;
+    }
+
+    synchronized int size(String docId) {
+        var stack = documents.get(docId);
+        return stack == null ? 0 : stack.size();
+    }
+
+    synchronized int segments() { return sealed.size() + (active == null ? 0 : 1); }
+
+    // Забыть просроченное по retention.maxAge и уплотнить сегменты с мусором
+    synchronized void compact() {
+        expire();
+        for (Segment s : List.copyOf(sealed)) {
+            if (s.liveBytes < s.position) rewrite(s);
+        }
+    }
+
+    @Override public synchronized void close() throws IOException {
+        if (active != null) sealed.add(active);
+        for (Segment s : sealed) {
+            s.ch.close();
+            Files.deleteIfExists(s.path);
+        }
+        sealed.clear();
+        active = null;
+        deflater.end();
+        inflater.end();
+    }
+
+    // --- ярусы ---
+
+    // самые старые записи — в начале byAge и в начале стека своего документа: снимаем, пока не дойдём до свежей
+    private void expire() {
+        if (retention.maxAge() == null) return;
+        long deadline = System.currentTimeMillis() - retention.maxAge().toMillis();
+        while (!byAge.isEmpty() && (byAge.peekFirst().dead || byAge.peekFirst().createdAt < deadline)) {
+            var e = byAge.pollFirst();
+            if (e.dead) continue;
+            var stack = documents.get(e.docId);
+            stack.pollFirst(); // это и есть e
+            kill(e);
+            if (stack.isEmpty()) documents.remove(e.docId);
+        }
+    }
+
+    private void demote() {
+        while (hotCount > hotLimit) {
+            var e = hot.pollFirst();
+            if (e.dead) continue;
+            if (TextEditor.retainedBytes(e.memento) >= PACK_MIN) { // решаем до сжатия: текст собирается один раз
+                e.packed = deflate(TextEditor.toBytes(e.memento));
+                e.memento = null;
+            }
+            e.tier = Tier.WARM;
+            hotCount--;
+            warm.addLast(e);
+            warmCount++;
+        }
+        while (warmCount > warmLimit) {
+            var e = warm.pollFirst();
+            if (e.dead) continue;
+            append(e, e.packed != null ? e.packed : deflate(TextEditor.toBytes(e.memento))); // сжатое в WARM не пережимаем
+            e.packed = null;
+            e.memento = null;
+            e.tier = Tier.COLD;
+            warmCount--;
+        }
+    }
+
+    private TextEditor.Memento load(Entry e) {
+        return switch (e.tier) {
+            case HOT -> e.memento;
+            case WARM -> e.packed == null ? e.memento : TextEditor.fromBytes(inflate(e.packed));
+            case COLD -> TextEditor.fromBytes(inflate(read(e)));
+        };
+    }
+
+    private void kill(Entry e) {
+        e.dead = true;
+        switch (e.tier) {
+            case HOT -> {
+                hotCount--;
+                e.memento = null;
+                if (hot.peekLast() == e) hot.pollLast(); // обычный случай — pop самого свежего
+            }
+            case WARM -> {
+                warmCount--;
+                e.packed = null;
+                e.memento = null;
+                if (warm.peekLast() == e) warm.pollLast();
+            }
+            case COLD -> {
+                var s = e.segment;
+                s.liveBytes -= HEADER + e.length;
+                if (s != active && s.liveBytes * 2 < s.position) rewrite(s);
+            }
+        }
+    }
+
+    // --- сегменты: [int len][int crc][сжатый снимок], только дозапись ---
+
+    private void append(Entry e, byte[] packed) {
+        int need = HEADER + packed.length;
+        if (active == null || active.position + need > active.map.capacity()) roll(need);
+        var s = active;
+        var crc = new CRC32();
+        crc.update(packed);
+        s.map.putInt(s.position, packed.length).putInt(s.position + Integer.BYTES, (int) crc.getValue());
+        s.map.put(s.position + HEADER, packed);
+        e.segment = s;
+        e.offset = s.position;
+        e.length = packed.length;
+        s.position += need;
+        s.liveBytes += need;
+        s.entries.add(e);
+    }
+
+    private byte[] read(Entry e) {
+        var map = e.segment.map;
+        byte[] packed = new byte[map.getInt(e.offset)];
+        map.get(e.offset + HEADER, packed);
+        var crc = new CRC32();
+        crc.update(packed);
+        if ((int) crc.getValue() != map.getInt(e.offset + Integer.BYTES)) {
+            throw new IllegalStateException("corrupt checkpoint in " + e.segment.path + " at " + e.offset);
+        }
+        return packed;
+    }
+
+    private void roll(int need) {
+        try {
+            if (active != null) sealed.add(active);
+            active = new Segment(dir.resolve("checkpoints-" + nextSegment++ + ".seg"), Math.max(segmentBytes, need));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // живые записи сегмента переезжают в активный, сам файл удаляется
+    private void rewrite(Segment s) {
+        sealed.remove(s);
+        for (Entry e : s.entries) {
+            if (!e.dead) append(e, read(e));
+        }
+        try {
+            s.ch.close();
+            Files.deleteIfExists(s.path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // --- сжатие ---
+
+    private byte[] deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        var out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) out.write(chunk, 0, deflater.deflate(chunk));
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] packed) {
+        try {
+            inflater.reset();
+            inflater.setInput(packed);
+            var out = new ByteArrayOutputStream(packed.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsInput()) throw new IllegalStateException("truncated checkpoint");
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("corrupt checkpoint", ex);
+        }
+    }
+}
@@ -1,38 +1,121 @@
 package behavioral.memento;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
-// Originator
+// Originator: текст — цепочка кусков (piece table) поверх общего буфера, в который только дописывают.
+// Куски неизменяемы, поэтому снимок — просто ссылка на последний кусок: O(1) по времени и памяти,
+// все снимки разделяют одни и те же символы.
 final class TextEditor {
-    private StringBuilder buf = new StringBuilder();
+    private static final int SNAP_BYTES = 24, PIECE_BYTES = 32; // заголовок объекта + поля, со сжатыми ссылками
 
-    public void append(String s) { buf.append(s); }
+    private AddBuffer chars = new AddBuffer();
+    private Piece last; // null — пустой текст
+    private String cached; // text() для текущего last
+
+    public void append(String s) {
+        if (s.isEmpty()) return;
+        int start = chars.append(s);
+        // дописываем сразу за куском, который кончается в конце буфера, — расширяем его копией
+        if (last != null && last.start + last.len == start) {
+            last = new Piece(last.start, last.len + s.length(), last.prev);
+        } else {
+            last = new Piece(start, s.length(), last);
+        }
+        cached = null;
+    }
 
     public void deleteLast(int n) {
-        int newLen = Math.max(0, buf.length() - Math.max(0, n));
-        buf.setLength(newLen);
+        int left = Math.max(0, n);
+        while (last != null && left > 0) {
+            if (last.len > left) {
+                last = new Piece(last.start, last.len - left, last.prev);
+                break;
+            }
+            left -= last.len;
+            last = last.prev;
+        }
+        cached = null;
     }
 
-    public String text() { return buf.toString(); }
+    public String text() {
+        if (cached == null) cached = last == null ? "" : chars.read(last);
+        return cached;
+    }
 
     // Сохранить/восстановить снимок (внешний мир видит только узкий интерфейс)
-    public Memento save() { return new Snap(buf.toString()); }
+    public Memento save() { return new Snap(chars, last); }
 
     public void restore(Memento m) {
-        this.buf = new StringBuilder(((Snap) m).state());
+        var snap = (Snap) m;
+        if (snap.last() != last || snap.chars() != chars) cached = null; // тот же текст — собранная строка ещё годится
+        this.chars = snap.chars();
+        this.last = snap.last();
+    }
+
+    // Снимок наружу — только байтами (UTF-8 текста): хранитель может выгрузить его из кучи, не зная устройства
+    static byte[] toBytes(Memento m) {
+        var snap = (Snap) m;
+        String text = snap.last() == null ? "" : snap.chars().read(snap.last());
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Сколько кучи держит ссылка на снимок: его цепочка кусков плюс хотя бы его собственные символы —
+    // они живут в буфере, пока жив снимок (буфер бывает и больше: его делят редактор и соседние снимки)
+    static long retainedBytes(Memento m) {
+        var snap = (Snap) m;
+        long pieces = 0;
+        for (Piece p = snap.last(); p != null; p = p.prev) pieces++;
+        return SNAP_BYTES + pieces * PIECE_BYTES + (snap.last() == null ? 0 : snap.last().length);
+    }
+
+    static Memento fromBytes(byte[] bytes) {
+        var editor = new TextEditor();
+        editor.append(new String(bytes, StandardCharsets.UTF_8));
+        return editor.save();
     }
 
     // Узкий тип снимка доступен снаружи (для хранения), реализация скрыта
     public sealed interface Memento permits Snap {}
 
-    // Реализация снимка — приватная «чёрная коробка»
-    private static final record Snap(String state) implements Memento {}
+    // Реализация снимка — приватная «чёрная коробка»; собранный текст не хранится — снимок держит
+    // только цепочку кусков, общую с редактором и другими снимками, а строка соберётся после restore
+    private static final record Snap(AddBuffer chars, Piece last) implements Memento {}
+
+    // Кусок текста: [start, start + len) в буфере, prev — всё, что перед ним; length — длина текста до конца куска
+    private record Piece(int start, int len, Piece prev, int length) {
+        Piece(int start, int len, Piece prev) { this(start, len, prev, prev == null ? len : prev.length + len); }
+    }
+
+    // Буфер только на дозапись: однажды записанные символы не меняются, на них ссылаются снимки.
+    // StringBuilder держит латиницу по байту на символ, как и String
+    private static final class AddBuffer {
+        private final StringBuilder data = new StringBuilder();
+
+        int append(String s) {
+            int start = data.length();
+            data.append(s);
+            return start;
+        }
+
+        String read(Piece last) {
+            if (last.prev == null) return data.substring(last.start, last.start + last.len);
+            var pieces = new ArrayDeque<Piece>();
+            for (Piece p = last; p != null; p = p.prev) pieces.push(p);
+            var out = new StringBuilder(last.length);
+            for (Piece p : pieces) out.append(data, p.start, p.start + p.len);
+            return out.toString();
+        }
+    }
 }
 
 // Caretaker
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         TextEditor editor = new TextEditor();
         Deque<TextEditor.Memento> history = new ArrayDeque<>();
 
@@ -50,5 +133,21 @@ public class Main {
 
         editor.restore(history.pop());
         System.out.println(editor.text());        // Hello
+
+        // Долгая история многих документов: свежее — в куче, старое — сжато и на диске
+        Path dir = Files.createTempDirectory("checkpoints");
+        try (var store = new CheckpointStore(dir, 1, 1, 1 << 20, CheckpointStore.Retention.keepAll())) {
+            store.push("doc-1", editor.save());   // уедет на диск
+            editor.append(" again");
+            store.push("doc-1", editor.save());   // останется в куче (такой мелкий — ссылкой, не сжатым)
+            editor.append("!");
+            store.push("doc-1", editor.save());   // останется как есть
+            while (store.size("doc-1") > 0) {
+                var tier = store.peekTier("doc-1");
+                editor.restore(store.pop("doc-1"));
+                System.out.println(tier + ": " + editor.text()); // HOT, WARM, COLD
+            }
+        }
+        Files.delete(dir);
     }
 }
\ No newline at end of file
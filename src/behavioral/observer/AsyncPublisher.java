@@ -0,0 +1,162 @@
+package behavioral.observer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Политика для подписчика, который не успевает за публикатором
+enum Backpressure {
+    BLOCK,       // публикатор ждёт, пока подписчик освободит место в кольце
+    DROP_OLDEST, // отставший подписчик пропускает самые старые события
+    CONFLATE     // подписчик получает только самое свежее событие
+}
+
+// Неизменяемый снимок события: наблюдатель читает state() из него, а не из живого источника
+record Event<T>(long sequence, T state) implements SubjectView<T> {}
+
+// Асинхронный источник в стиле Disruptor: заранее выделенное кольцо слотов, курсор публикации
+// и у каждого подписчика собственная последовательность и поток-обработчик.
+// publish() не вызывает наблюдателей — медленный EmailService больше не тормозит публикацию.
+// Обработчик без событий недолго крутится, затем засыпает до unpark из publish() — простой не ест CPU.
+final class AsyncPublisher<T> implements Subject<T>, AutoCloseable {
+    private static final int SPINS = 1_000; // столько пустых проверок курсора перед сном
+    private final int size;
+    private final int mask;
+    private final AtomicReferenceArray<Event<T>> ring;
+    private final AtomicLong claimed = new AtomicLong(-1); // последний выданный номер
+    private final AtomicLong cursor = new AtomicLong(-1);  // последний опубликованный номер
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    AsyncPublisher(int ringSize) {
+        if (Integer.bitCount(ringSize) != 1) throw new IllegalArgumentException("ring size must be a power of two");
+        this.size = ringSize;
+        this.mask = ringSize - 1;
+        this.ring = new AtomicReferenceArray<>(ringSize);
+    }
+
+    public void publish(T value) {
+        long seq = claimed.incrementAndGet();
+        // BLOCK-подписчики не дают перезаписать слот, который они ещё не прочитали
+        while (seq - size > minBlockingSequence()) LockSupport.parkNanos(1_000);
+        ring.set((int) seq & mask, new Event<>(seq, value));
+        // публикуем строго по порядку номеров, если писателей несколько
+        while (!cursor.compareAndSet(seq - 1, seq)) Thread.onSpinWait();
+        for (Subscriber s : subscribers) {
+            if (s.parked) LockSupport.unpark(s.thread); // спящий проверит курсор после parked = true — пробуждение не теряется
+        }
+    }
+
+    @Override public T state() {
+        long c = cursor.get();
+        return c < 0 ? null : ring.get((int) c & mask).state();
+    }
+
+    @Override public void subscribe(Observer<T> o) { subscribe(o, Backpressure.BLOCK); }
+
+    public void subscribe(Observer<T> o, Backpressure policy) {
+        var s = new Subscriber(o, policy, cursor.get() + 1);
+        subscribers.add(s);
+        s.thread.start();
+    }
+
+    @Override public void unsubscribe(Observer<T> o) {
+        for (Subscriber s : subscribers) {
+            if (s.observer == o) { subscribers.remove(s); s.stop(); }
+        }
+    }
+
+    // сколько событий пропустил подписчик по своей политике
+    long dropped(Observer<T> o) {
+        for (Subscriber s : subscribers) if (s.observer == o) return s.dropped;
+        return 0;
+    }
+
+    // дожидается доставки уже опубликованного и останавливает обработчиков
+    @Override public void close() {
+        for (Subscriber s : subscribers) s.stop();
+        subscribers.clear();
+    }
+
+    private long minBlockingSequence() {
+        long min = Long.MAX_VALUE;
+        for (Subscriber s : subscribers) {
+            if (s.policy == Backpressure.BLOCK) min = Math.min(min, s.sequence.get());
+        }
+        return min;
+    }
+
+    private final class Subscriber implements Runnable {
+        final Observer<T> observer;
+        final Backpressure policy;
+        final AtomicLong sequence; // последний обработанный номер
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean parked; // спит до unpark от publish() или stop()
+        volatile long dropped;
+
+        Subscriber(Observer<T> observer, Backpressure policy, long from) {
+            this.observer = observer;
+            this.policy = policy;
+            this.sequence = new AtomicLong(from - 1);
+            this.thread = new Thread(this, "observer-" + observer.getClass().getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                long available = cursor.get();
+                if (next > available) {
+                    if (!running) return;
+                    if (++idle < SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = true;
+                        if (running && cursor.get() < next) LockSupport.park(this);
+                        parked = false;
+                    }
+                    continue;
+                }
+                idle = 0;
+                if (policy == Backpressure.CONFLATE && available > next) {
+                    skip(available - next); next = available;
+                } else if (policy == Backpressure.DROP_OLDEST && available - next >= size) {
+                    skip(available - size + 1 - next); next = available - size + 1;
+                }
+                // пачкой до доступного курсора
+                for (; next <= available; next++) {
+                    Event<T> e = ring.get((int) next & mask);
+                    if (e.sequence() != next) break; // слот уже перезаписан — снова догоняем курсор
+                    deliver(e);
+                    sequence.lazySet(next);
+                }
+            }
+        }
+
+        private void deliver(Event<T> e) {
+            try {
+                observer.onUpdate(e);
+            } catch (RuntimeException ex) {
+                System.out.println("[bus] observer failed: " + ex); // один подписчик не ломает остальных
+            }
+        }
+
+        private void skip(long n) {
+            dropped += n;
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() == thread) return; // отписка из своего же onUpdate: цикл выйдет сам
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package behavioral.observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Замер: подписка/отписка и задержка publish у NewsPublisher (CopyOnWriteArrayList)
+// против TopicPublisher (шардированный реестр). Упрощённый прогон на System.nanoTime.
+public class Benchmark {
+    public static void main(String[] args) {
+        int subscribers = 20_000, publishes = 200;
+        var received = new LongAdder();
+        List<Observer<String>> observers = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) observers.add(src -> { if (src.state() == null) received.increment(); }); // дешёвый подписчик без общей записи
+
+        for (int round = 1; round <= 3; round++) { // первые раунды — прогрев JIT
+            System.out.println("round " + round);
+            run("NewsPublisher", new NewsPublisher(), observers, publishes, p -> p.publish("news"));
+            // обе темы — те же 20 тысяч доставок на публикацию, что у NewsPublisher без тем
+            run("TopicPublisher", new TopicPublisher<>(), observers, publishes, p -> {
+                p.publish("sport", "news");
+                p.publish("tech", "news");
+            });
+        }
+        System.out.println("null events: " + received.sum());
+    }
+
+    private static <S extends Subject<String>> void run(String name, S publisher, List<Observer<String>> observers,
+                                                        int publishes, Consumer<S> publish) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < observers.size(); i++) publisher.subscribe(i % 2 == 0 ? "sport" : "tech", observers.get(i));
+        long subscribe = System.nanoTime() - t0;
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < publishes; i++) publish.accept(publisher);
+        long publish1 = (System.nanoTime() - t1) / publishes;
+
+        long t2 = System.nanoTime();
+        for (int i = 0; i < observers.size(); i++) publisher.unsubscribe(i % 2 == 0 ? "sport" : "tech", observers.get(i));
+        long unsubscribe = System.nanoTime() - t2;
+
+        System.out.printf("%-15s subscribe %,10.0f ops/s  unsubscribe %,10.0f ops/s  publish %8.1f us%n", name,
+                observers.size() / (subscribe / 1e9), observers.size() / (unsubscribe / 1e9), publish1 / 1e3);
+    }
+}
@@ -5,13 +5,21 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 // Наблюдатель: получает ссылку на источник и тянет состояние сам (PULL)
 @FunctionalInterface
-interface Observer<T> { void onUpdate(Subject<T> source); }
+interface Observer<T> { void onUpdate(SubjectView<T> source); }
+
+// То, что наблюдатель видит в onUpdate: только состояние, без управления подписками
+interface SubjectView<T> {
+    T state(); // текущее состояние, которое наблюдатели читают в onUpdate(...)
+}
 
 // Источник событий
-interface Subject<T> {
+interface Subject<T> extends SubjectView<T> {
     void subscribe(Observer<T> o);
     void unsubscribe(Observer<T> o);
-    T state(); // текущее состояние, которое наблюдатели читают в onUpdate(...)
+
+    // подписка по теме; источник без тем отдаёт подписчику всё
+    default void subscribe(String topic, Observer<T> o)   { subscribe(o); }
+    default void unsubscribe(String topic, Observer<T> o) { unsubscribe(o); }
 }
 
 // Публикатор новостей (Subject)
@@ -36,12 +44,12 @@ final class NewsPublisher implements Subject<String> {
 
 // Подписчики (Observers): тянут news через source.state()
 final class EmailService implements Observer<String> {
-    @Override public void onUpdate(Subject<String> source) {
+    @Override public void onUpdate(SubjectView<String> source) {
         System.out.println("[EMAIL] " + source.state());
     }
 }
 final class SmsService implements Observer<String> {
-    @Override public void onUpdate(Subject<String> source) {
+    @Override public void onUpdate(SubjectView<String> source) {
         System.out.println("[SMS] " + source.state());
     }
 }
@@ -59,5 +67,20 @@ public class Main {
         publisher.publish("Распродажа до −50%!");
         publisher.unsubscribe(sms);
         publisher.publish("Вышла новая статья про поведенческие паттерны.");
+
+        // Асинхронный режим: публикация не ждёт подписчиков, каждый получает снимок события
+        try (var bus = new AsyncPublisher<String>(1024)) {
+            bus.subscribe(email);                          // BLOCK: не теряет ни одной новости
+            bus.subscribe(sms, Backpressure.CONFLATE);     // SMS достаточно последней новости
+            bus.publish("Скидки продлены до воскресенья.");
+            bus.publish("Открыт новый пункт выдачи.");
+        } // close() дожидается доставки
+
+        // Темы: подписчик получает только новости своей темы
+        var topics = new TopicPublisher<String>();
+        topics.subscribe("sale", email);
+        topics.subscribe("articles", sms);
+        topics.publish("sale", "Чёрная пятница!");          // только EMAIL
+        topics.publish("articles", "Разбор паттерна State"); // только SMS
     }
 }
\ No newline at end of file
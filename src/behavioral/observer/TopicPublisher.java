@@ -0,0 +1,130 @@
+package behavioral.observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Реестр подписчиков, разбитый на шарды по identityHashCode наблюдателя.
+// Внутри шарда: тема -> конкурентное множество. Подписка/отписка — O(1) без копирования массива,
+// конкуренция за запись размазана по шардам, чтение при рассылке не берёт блокировок.
+final class ShardedRegistry<T> {
+    // Подписчики темы в одном шарде; для рассылки держим неизменяемый список-снимок,
+    // который пересобирается лениво — один раз после серии изменений, а не на каждое
+    static final class Subscribers<T> {
+        private record Snapshot<T>(int version, List<Observer<T>> observers) {}
+
+        final Set<Observer<T>> set = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger version = new AtomicInteger();
+        private volatile Snapshot<T> snapshot;
+
+        void changed() { version.incrementAndGet(); }
+
+        List<Observer<T>> observers() {
+            int v = version.get();
+            var snap = snapshot;
+            if (snap != null && snap.version() == v) return snap.observers();
+            var list = List.copyOf(set);
+            snapshot = new Snapshot<>(v, list);
+            return list;
+        }
+    }
+
+    private final List<Map<String, Subscribers<T>>> shards;
+    private final int mask;
+
+    ShardedRegistry(int shardCount) {
+        int n = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.mask = n - 1;
+        this.shards = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) shards.add(new ConcurrentHashMap<>());
+    }
+
+    // false — наблюдатель уже был подписан на тему
+    boolean add(String topic, Observer<T> o) {
+        var added = new boolean[1];
+        shard(o).compute(topic, (t, subs) -> {
+            if (subs == null) subs = new Subscribers<>();
+            if (added[0] = subs.set.add(o)) subs.changed();
+            return subs;
+        });
+        return added[0];
+    }
+
+    // false — подписки на тему не было
+    boolean remove(String topic, Observer<T> o) {
+        var removed = new boolean[1];
+        // пустую тему удаляем атомарно, чтобы темы не копились после отписки
+        shard(o).computeIfPresent(topic, (t, subs) -> {
+            if (removed[0] = subs.set.remove(o)) subs.changed();
+            return subs.set.isEmpty() ? null : subs;
+        });
+        return removed[0];
+    }
+
+    int shardCount() { return shards.size(); }
+
+    List<Observer<T>> subscribers(int shard, String topic) {
+        var subs = shards.get(shard).get(topic);
+        return subs == null ? List.of() : subs.observers();
+    }
+
+    private Map<String, Subscribers<T>> shard(Observer<T> o) {
+        int h = System.identityHashCode(o);
+        return shards.get((h ^ (h >>> 16)) & mask);
+    }
+}
+
+// Источник с темами: подписчики темы получают только её новости,
+// подписчики без темы (subscribe(o)) — все. Рассылка большим аудиториям идёт по шардам параллельно.
+final class TopicPublisher<T> implements Subject<T> {
+    static final String ALL = "*";
+    private static final int PARALLEL_THRESHOLD = 4_096;
+    private static final boolean MULTICORE = Runtime.getRuntime().availableProcessors() > 1;
+
+    private final ShardedRegistry<T> registry =
+            new ShardedRegistry<>(Runtime.getRuntime().availableProcessors() * 4);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong subscriptions = new AtomicLong(); // действующие пары (тема, наблюдатель)
+    private volatile T last;
+
+    public void publish(String topic, T value) {
+        last = value;
+        var event = new Event<>(sequence.incrementAndGet(), value); // снимок, а не ссылка на источник
+        if (!MULTICORE || subscriptions.get() < PARALLEL_THRESHOLD) {
+            for (int s = 0; s < registry.shardCount(); s++) deliver(s, topic, event);
+            return;
+        }
+        var tasks = new ArrayList<ForkJoinTask<?>>(registry.shardCount());
+        for (int s = 0; s < registry.shardCount(); s++) {
+            int shard = s;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> deliver(shard, topic, event)));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    @Override public T state() { return last; }
+
+    @Override public void subscribe(Observer<T> o)   { subscribe(ALL, o); }
+    @Override public void unsubscribe(Observer<T> o) { unsubscribe(ALL, o); }
+
+    @Override public void subscribe(String topic, Observer<T> o) {
+        if (registry.add(topic, o)) subscriptions.incrementAndGet(); // повторная подписка не считается
+    }
+
+    @Override public void unsubscribe(String topic, Observer<T> o) {
+        if (registry.remove(topic, o)) subscriptions.decrementAndGet();
+    }
+
+    private void deliver(int shard, String topic, Event<T> event) {
+        for (Observer<T> o : registry.subscribers(shard, topic)) o.onUpdate(event);
+        if (!ALL.equals(topic)) {
+            for (Observer<T> o : registry.subscribers(shard, ALL)) o.onUpdate(event);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package behavioral.state;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// Пропускная способность парка от 1 до N потоков: FleetEngine (CAS + кольца эффектов) против
+// массива Turnstile под synchronized на каждый турникет. Упрощённый прогон без JMH.
+public class FleetBenchmark {
+    private static final int GATES = 50_000, EVENTS_PER_THREAD = 2_000_000;
+
+    private interface Fleet { void fire(int gate, GateEvent e); }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int round = 1; round <= 2; round++) { // первый раунд — прогрев JIT
+            for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                var effects = new LongAdder();
+                try (var engine = new FleetEngine(GATES, 16, 1 << 14, (g, e, n) -> effects.add(n))) {
+                    report(round, "fleet", threads, engine::fire);
+                }
+
+                var gates = new Turnstile[GATES];
+                var counted = new LongAdder();
+                for (int i = 0; i < GATES; i++) gates[i] = new Turnstile(e -> counted.increment()); // эффект доставлен сразу
+                report(round, "synchronized", threads, (g, e) -> {
+                    var t = gates[g];
+                    synchronized (t) { e.fire(t); }
+                });
+                if (threads >= cores) break;
+            }
+        }
+    }
+
+    private static void report(int round, String name, int threads, Fleet fleet) throws InterruptedException {
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        GateEvent[] events = GateEvent.values();
+        for (int t = 0; t < threads; t++) {
+            int seed = t * 0x9E3779B9 + 1;
+            new Thread(() -> {
+                int x = seed;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                    x ^= x << 13; x ^= x >>> 17; x ^= x << 5; // xorshift: случайный турникет и событие
+                    fleet.fire((x >>> 2) % GATES, events[x & 3]);
+                }
+                done.countDown();
+            }).start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        long ns = System.nanoTime() - t0;
+        long total = (long) threads * EVENTS_PER_THREAD;
+        System.out.printf("round %d %-12s threads %2d: %6.1f M events/s%n", round, name, threads, total * 1e3 / ns);
+    }
+}
@@ -0,0 +1,211 @@
+package behavioral.state;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// События турникета; fire() — то же, что вызвать соответствующий метод Turnstile
+enum GateEvent {
+    COIN_PAID, COIN_UNPAID, PUSH, TIMEOUT;
+
+    void fire(Turnstile t) {
+        switch (this) {
+            case COIN_PAID -> t.coin(true);
+            case COIN_UNPAID -> t.coin(false);
+            case PUSH -> t.push();
+            case TIMEOUT -> t.timeout();
+        }
+    }
+}
+
+// Получатель эффектов: в пачке [0, count) турникет gates[i] выдал effects[i]; массивы переиспользуются
+interface EffectSink {
+    void accept(int[] gates, Effect[] effects, int count);
+}
+
+// Парк турникетов: состояние каждого — один байт в общем массиве. Переход CAS-ом ставит в байте
+// флаг BUSY, выдаёт эффект и взводит/снимает таймер, затем публикует новое состояние, — так эффекты
+// и таймеры одного турникета идут в порядке его переходов; разные турникеты друг друга не ждут.
+// Таблица переходов не пишется руками: она снимается с синглтонов Locked/Unlocked прогоном
+// каждого события на записывающем Turnstile. Эффекты не печатаются, а копятся в шардированных
+// кольцах и пачками уходят в EffectSink на отдельном потоке.
+final class FleetEngine implements AutoCloseable {
+    static final TurnstileState[] STATES = {Turnstile.LOCKED, Turnstile.UNLOCKED};
+    private static final GateEvent[] EVENTS = GateEvent.values();
+    private static final Effect[] EFFECTS = Effect.values();
+    private static final VarHandle STATE = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final byte NONE = -1;
+    private static final byte BUSY = (byte) 0x80; // турникет посреди перехода: остальные события ждут
+    private static final int BATCH = 4096;
+
+    private final byte[] states;                    // [gate] -> индекс в STATES
+    private final byte[] next = new byte[STATES.length * EVENTS.length];   // [state * events + event]
+    private final byte[] effect = new byte[STATES.length * EVENTS.length]; // ordinal Effect или NONE
+    private final EffectRing[] shards;
+    private final EffectSink sink;
+    private final Thread drainer;
+    private volatile boolean running = true;
+    private volatile TimingWheel timeouts; // автозакрытие, если включено
+    private long autoLockNanos;
+
+    FleetEngine(int gates, int shardCount, int ringSize, EffectSink sink) {
+        if (Integer.bitCount(ringSize) != 1) throw new IllegalArgumentException("ring size must be a power of two");
+        this.states = new byte[gates]; // все закрыты: LOCKED — индекс 0
+        this.shards = new EffectRing[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new EffectRing(ringSize);
+        this.sink = sink;
+        for (int s = 0; s < STATES.length; s++) {
+            for (GateEvent e : EVENTS) probe(s, e);
+        }
+        this.drainer = new Thread(this::drainLoop, "fleet-effects");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    void fire(int gate, GateEvent e) {
+        while (true) {
+            byte s = (byte) STATE.getVolatile(states, gate);
+            if ((s & BUSY) != 0) { // переход соседнего потока ещё не опубликован — он короткий
+                Thread.onSpinWait();
+                continue;
+            }
+            int t = s * EVENTS.length + e.ordinal();
+            byte n = next[t];
+            if (n == s && effect[t] == NONE) return; // ничего не меняется и нечего выдать
+            if (!STATE.compareAndSet(states, gate, s, (byte) (s | BUSY))) continue;
+            try {
+                if (effect[t] != NONE) shards[gate % shards.length].offer((long) gate << 8 | effect[t] + 1);
+                var wheel = timeouts;
+                if (wheel != null && n != s) {
+                    if (STATES[n] == Turnstile.UNLOCKED) wheel.arm(gate, autoLockNanos, TimeUnit.NANOSECONDS);
+                    else wheel.cancel(gate);
+                }
+            } finally {
+                STATE.setVolatile(states, gate, n);
+            }
+            return;
+        }
+    }
+
+    void coin(int gate, boolean paid) { fire(gate, paid ? GateEvent.COIN_PAID : GateEvent.COIN_UNPAID); }
+    void push(int gate)               { fire(gate, GateEvent.PUSH); }
+    void timeout(int gate)            { fire(gate, GateEvent.TIMEOUT); }
+
+    // Автозакрытие: открытый турникет получает timeout через after после открытия.
+    // Таймеры — в колесе с тиком в 1/64 задержки, по одному на турникет
+    void autoLock(long after, TimeUnit unit) {
+        if (timeouts != null) throw new IllegalStateException("auto-lock is already on");
+        autoLockNanos = unit.toNanos(after);
+        long tick = Math.max(TimeUnit.MILLISECONDS.toNanos(1), autoLockNanos / 64);
+        timeouts = new TimingWheel(states.length, tick, TimeUnit.NANOSECONDS, 128, shards.length, this::timeout);
+    }
+
+    TurnstileState state(int gate) { return STATES[(byte) STATE.getVolatile(states, gate) & ~BUSY]; }
+
+    int gates() { return states.length; }
+
+    // ждёт, пока все уже выданные эффекты дойдут до получателя
+    void flush() {
+        for (EffectRing r : shards) {
+            while (r.read < r.claimed.get()) LockSupport.parkNanos(50_000);
+        }
+    }
+
+    @Override public void close() {
+        if (timeouts != null) timeouts.close();
+        flush();
+        running = false;
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void probe(int s, GateEvent e) {
+        var recorded = new ArrayList<Effect>(1);
+        int t = s * EVENTS.length + e.ordinal();
+        next[t] = (byte) indexOf(probe(STATES[s], e, recorded));
+        effect[t] = recorded.isEmpty() ? NONE : (byte) recorded.get(0).ordinal();
+    }
+
+    // переход (from, e) настоящего турникета: возвращает следующее состояние, эффект (не больше одного) — в effects
+    static TurnstileState probe(TurnstileState from, GateEvent e, List<Effect> effects) {
+        var gate = new Turnstile(effects::add);
+        gate.setState(from);
+        e.fire(gate);
+        if (effects.size() > 1) throw new IllegalStateException("more than one effect for " + from + " on " + e);
+        return gate.state();
+    }
+
+    private static int indexOf(TurnstileState state) {
+        for (int i = 0; i < STATES.length; i++) if (STATES[i] == state) return i;
+        throw new IllegalStateException("unknown state: " + state);
+    }
+
+    private void drainLoop() {
+        int[] gates = new int[BATCH];
+        Effect[] effects = new Effect[BATCH];
+        while (true) {
+            boolean stopping = !running; // читаем до прохода: всё выданное раньше попадёт в этот проход
+            int total = 0;
+            for (EffectRing r : shards) {
+                int n;
+                while ((n = r.drainTo(gates, effects)) > 0) {
+                    total += n;
+                    try {
+                        sink.accept(gates, effects, n);
+                    } catch (RuntimeException ex) {
+                        System.out.println("[fleet] effect sink failed: " + ex); // не теряем поток
+                    }
+                }
+            }
+            if (total == 0) {
+                if (stopping) return;
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    }
+
+    // Кольцо эффектов одного шарда: много писателей, один читатель (drainer).
+    // Слот 0 — пусто; писатель занимает номер, ждёт место и публикует значение в слот.
+    private static final class EffectRing {
+        private final AtomicLongArray slots;
+        private final int mask;
+        final AtomicLong claimed = new AtomicLong();
+        volatile long read;
+
+        EffectRing(int size) {
+            this.slots = new AtomicLongArray(size);
+            this.mask = size - 1;
+        }
+
+        void offer(long value) {
+            long seq = claimed.getAndIncrement();
+            while (seq - read > mask) LockSupport.parkNanos(1_000); // кольцо полно — ждём читателя
+            slots.lazySet((int) seq & mask, value);
+        }
+
+        int drainTo(int[] gates, Effect[] effects) {
+            long r = read;
+            int n = 0;
+            while (n < gates.length) {
+                int i = (int) r & mask;
+                long v = slots.get(i);
+                if (v == 0) break;
+                slots.lazySet(i, 0);
+                gates[n] = (int) (v >>> 8);
+                effects[n] = EFFECTS[(int) (v & 0xFF) - 1];
+                n++;
+                r++;
+            }
+            read = r;
+            return n;
+        }
+    }
+}
@@ -1,5 +1,18 @@
 package behavioral.state;
 
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// «Эффекты» турникета — то, что он делает при переходах
+enum Effect {
+    LOCK("LOCKED"), UNLOCK("UNLOCKED"), ALARM("ALARM!"), THANK("THANK YOU");
+
+    final String message;
+
+    Effect(String message) { this.message = message; }
+}
+
 // Контекст + состояния (инкапсулированы внутри)
 final class Turnstile {
     // синглтоны состояний
@@ -8,6 +21,12 @@ final class Turnstile {
 
     // текущее состояние
     private TurnstileState state = LOCKED;
+    private final Consumer<Effect> effects;
+
+    Turnstile() { this(e -> System.out.println("Turnstile: " + e.message)); }
+
+    // эффекты уходят получателю, а не в консоль
+    Turnstile(Consumer<Effect> effects) { this.effects = effects; }
 
     // события
     void coin(boolean paid) { state.coin(this, paid); }
@@ -16,12 +35,13 @@ final class Turnstile {
 
     // смена состояния — доступна только внутри пакета
     void setState(TurnstileState s) { this.state = s; }
+    TurnstileState state() { return state; }
 
     // «эффекты»
-    void lock()   { System.out.println("Turnstile: LOCKED"); }
-    void unlock() { System.out.println("Turnstile: UNLOCKED"); }
-    void alarm()  { System.out.println("Turnstile: ALARM!"); }
-    void thank()  { System.out.println("Turnstile: THANK YOU"); }
+    void lock()   { effects.accept(Effect.LOCK); }
+    void unlock() { effects.accept(Effect.UNLOCK); }
+    void alarm()  { effects.accept(Effect.ALARM); }
+    void thank()  { effects.accept(Effect.THANK); }
 }
 
 sealed interface TurnstileState permits Locked, Unlocked {
@@ -54,7 +74,7 @@ final class Unlocked implements TurnstileState {
 
 // Демонстрация
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         var gate = new Turnstile();
 
         gate.push(); // ALARM! (закрыт)
@@ -64,5 +84,49 @@ public class Main {
         gate.timeout(); // LOCKED (автозакрытие)
         gate.coin(true);  // UNLOCKED
         gate.push(); // LOCKED (прошёл)
+
+        // То же поведение таблицей: пачка событий за один проход, с учётом горячих переходов
+        var machine = MachineSpec.turnstile().compile();
+        System.out.println("Table matches Locked/Unlocked: " + matchesStates(machine)); // true
+        byte[] events = {
+            (byte) GateEvent.PUSH.ordinal(), (byte) GateEvent.COIN_UNPAID.ordinal(), (byte) GateEvent.COIN_PAID.ordinal(),
+            (byte) GateEvent.COIN_PAID.ordinal(), (byte) GateEvent.TIMEOUT.ordinal(), (byte) GateEvent.COIN_PAID.ordinal(),
+            (byte) GateEvent.PUSH.ordinal()
+        };
+        var recorder = new TransitionRecorder(1);
+        int end = machine.run(machine.initial(), events, 0, events.length,
+                (i, effect) -> System.out.println("Table: " + StateMachine.effectOf(effect).message), recorder);
+        System.out.println("Table ends " + machine.stateName(end) + ", hottest " + recorder.hottest(machine).get(0));
+
+        // Парк турникетов: переходы — CAS по байту состояния, эффекты — пачками в отдельном потоке
+        try (var fleet = new FleetEngine(10_000, 4, 1024, (gates, effects, n) -> {
+            for (int i = 0; i < n; i++) System.out.println("Gate " + gates[i] + ": " + effects[i].message);
+        })) {
+            fleet.coin(42, true);  // Gate 42: UNLOCKED
+            fleet.push(42);        // Gate 42: LOCKED
+            fleet.push(7);         // Gate 7: ALARM!
+            fleet.flush();
+            System.out.println("Gate 42 now " + fleet.state(42).getClass().getSimpleName()); // Locked
+
+            // автозакрытие по таймеру вместо ручного timeout()
+            fleet.autoLock(100, TimeUnit.MILLISECONDS);
+            fleet.coin(5, true);   // Gate 5: UNLOCKED
+            Thread.sleep(300);     // Gate 5: LOCKED — сработал таймер
+            fleet.flush();
+        }
+    }
+    // таблица написана руками: каждый переход сверяем с тем, что делают синглтоны (больше одного эффекта — ошибка)
+    static boolean matchesStates(StateMachine m) {
+        for (int s = 0; s < FleetEngine.STATES.length; s++) {
+            var from = FleetEngine.STATES[s];
+            if (!m.stateName(s).equals(from.getClass().getSimpleName())) return false;
+            for (GateEvent e : GateEvent.values()) {
+                var recorded = new ArrayList<Effect>(1);
+                var to = FleetEngine.probe(from, e, recorded);
+                int effect = recorded.isEmpty() ? -1 : recorded.get(0).ordinal();
+                if (FleetEngine.STATES[m.next(s, e.ordinal())] != to || m.effect(s, e.ordinal()) != effect) return false;
+            }
+        }
+        return m.states() == FleetEngine.STATES.length;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package behavioral.state;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Декларативное описание автомата: состояния по именам, переходы (состояние, событие) -> (цель, эффект).
+// Первое объявленное состояние — начальное; не описанный переход — остаться на месте без эффекта.
+final class MachineSpec {
+    private final List<String> states = new ArrayList<>();
+    private final List<int[]> transitions = new ArrayList<>(); // {from, event, to, effect}
+
+    // Турникет из Main: то же поведение, что у Locked/Unlocked, только данными (сверка с ними — Main.matchesStates)
+    static MachineSpec turnstile() {
+        return new MachineSpec()
+                .state("Locked").state("Unlocked")
+                .on("Locked", GateEvent.COIN_PAID, "Unlocked", Effect.UNLOCK)
+                .on("Locked", GateEvent.COIN_UNPAID, "Locked", Effect.ALARM)
+                .on("Locked", GateEvent.PUSH, "Locked", Effect.ALARM)
+                .on("Unlocked", GateEvent.COIN_PAID, "Unlocked", Effect.THANK)
+                .on("Unlocked", GateEvent.COIN_UNPAID, "Unlocked", Effect.THANK)
+                .on("Unlocked", GateEvent.PUSH, "Locked", Effect.LOCK)
+                .on("Unlocked", GateEvent.TIMEOUT, "Locked", Effect.LOCK);
+    }
+
+    MachineSpec state(String name) {
+        if (states.contains(name)) throw new IllegalArgumentException("duplicate state: " + name);
+        states.add(name);
+        return this;
+    }
+
+    MachineSpec on(String from, GateEvent event, String to, Effect effect) {
+        transitions.add(new int[] {indexOf(from), event.ordinal(), indexOf(to), effect == null ? -1 : effect.ordinal()});
+        return this;
+    }
+
+    StateMachine compile() {
+        int events = GateEvent.values().length;
+        int[][] table = new int[states.size()][events];
+        for (int s = 0; s < table.length; s++) {
+            for (int e = 0; e < events; e++) table[s][e] = StateMachine.pack(s, -1);
+        }
+        for (int[] t : transitions) table[t[0]][t[1]] = StateMachine.pack(t[2], t[3]);
+        return new StateMachine(states.toArray(String[]::new), table);
+    }
+
+    private int indexOf(String state) {
+        int i = states.indexOf(state);
+        if (i < 0) throw new IllegalArgumentException("unknown state: " + state);
+        return i;
+    }
+}
+
+// Получатель эффектов при пакетном прогоне: событие events[index] дало эффект effect (ordinal Effect)
+interface EffectHandler {
+    void onEffect(int index, int effect);
+}
+
+// Скомпилированный автомат: плотная таблица int[state][event], в ячейке — (следующее состояние << 8 | эффект + 1).
+// Переход — одно чтение массива, без виртуальных вызовов; события идут пачкой из byte[] (ordinal GateEvent).
+final class StateMachine {
+    private static final Effect[] EFFECTS = Effect.values();
+
+    private final String[] states;
+    private final int[][] table;
+
+    StateMachine(String[] states, int[][] table) {
+        this.states = states;
+        this.table = table;
+    }
+
+    static int pack(int next, int effect) { return next << 8 | effect + 1; }
+
+    int initial() { return 0; }
+    int states() { return states.length; }
+    String stateName(int s) { return states[s]; }
+
+    int next(int state, int event) { return table[state][event] >>> 8; }
+
+    // эффект перехода: ordinal Effect или -1
+    int effect(int state, int event) { return (table[state][event] & 0xFF) - 1; }
+
+    static Effect effectOf(int effect) { return effect < 0 ? null : EFFECTS[effect]; }
+
+    // events[from, to) с состояния state; effects[i] — эффект события i или -1. Возвращает конечное состояние
+    int run(int state, byte[] events, int from, int to, byte[] effects) {
+        for (int i = from; i < to; i++) {
+            int cell = table[state][events[i]];
+            effects[i] = (byte) ((cell & 0xFF) - 1);
+            state = cell >>> 8;
+        }
+        return state;
+    }
+
+    // то же с вызовом обработчика на каждый эффект; recorder == null — без учёта
+    int run(int state, byte[] events, int from, int to, EffectHandler handler, TransitionRecorder recorder) {
+        if (recorder != null) return recorder.run(this, state, events, from, to, handler);
+        for (int i = from; i < to; i++) {
+            int cell = table[state][events[i]];
+            if ((cell & 0xFF) != 0) handler.onEffect(i, (cell & 0xFF) - 1);
+            state = cell >>> 8;
+        }
+        return state;
+    }
+
+    int cell(int state, int event) { return table[state][event]; }
+}
+
+// Снимок по одному переходу: сколько раз случился и средняя задержка по выборке (перехода вместе с эффектом)
+record TransitionStats(String from, GateEvent event, String to, long count, double sampledNanos) {}
+
+// Учёт переходов для одного потока: счётчик на каждую ячейку таблицы всегда,
+// время — только на каждом sampleEvery-м событии, чтобы nanoTime не съел выигрыш от таблицы
+final class TransitionRecorder {
+    private static final GateEvent[] EVENTS = GateEvent.values();
+
+    private final int sampleMask;
+    private long[] counts = new long[0];
+    private long[] sampledNanos = new long[0];
+    private long[] samples = new long[0];
+
+    TransitionRecorder(int sampleEvery) {
+        if (Integer.bitCount(sampleEvery) != 1) throw new IllegalArgumentException("sampleEvery must be a power of two");
+        this.sampleMask = sampleEvery - 1;
+    }
+
+    int run(StateMachine m, int state, byte[] events, int from, int to, EffectHandler handler) {
+        int cells = m.states() * EVENTS.length;
+        if (counts.length < cells) {
+            counts = Arrays.copyOf(counts, cells);
+            sampledNanos = Arrays.copyOf(sampledNanos, cells);
+            samples = Arrays.copyOf(samples, cells);
+        }
+        for (int i = from; i < to; i++) {
+            int key = state * EVENTS.length + events[i];
+            counts[key]++;
+            if ((i & sampleMask) == 0) {
+                long t0 = System.nanoTime();
+                state = step(m, state, events[i], i, handler);
+                sampledNanos[key] += System.nanoTime() - t0;
+                samples[key]++;
+            } else {
+                state = step(m, state, events[i], i, handler);
+            }
+        }
+        return state;
+    }
+
+    private static int step(StateMachine m, int state, int event, int i, EffectHandler handler) {
+        int cell = m.cell(state, event);
+        if ((cell & 0xFF) != 0) handler.onEffect(i, (cell & 0xFF) - 1);
+        return cell >>> 8;
+    }
+
+    // переходы от самых частых к редким
+    List<TransitionStats> hottest(StateMachine m) {
+        var out = new ArrayList<TransitionStats>();
+        for (int key = 0; key < counts.length; key++) {
+            if (counts[key] == 0) continue;
+            int s = key / EVENTS.length, e = key % EVENTS.length;
+            out.add(new TransitionStats(m.stateName(s), EVENTS[e], m.stateName(m.next(s, e)), counts[key],
+                    samples[key] == 0 ? 0 : (double) sampledNanos[key] / samples[key]));
+        }
+        out.sort(Comparator.comparingLong(TransitionStats::count).reversed());
+        return out;
+    }
+}
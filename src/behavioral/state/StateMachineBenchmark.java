@@ -0,0 +1,48 @@
+package behavioral.state;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Полиморфный Turnstile (виртуальные вызовы состояний) против таблицы StateMachine на пачке
+// случайных событий; отдельно — цена учёта переходов. Упрощённый прогон без JMH.
+public class StateMachineBenchmark {
+    private static final int EVENTS = 10_000_000;
+    private static long effects; // сток, чтобы JIT не выбросил работу
+
+    public static void main(String[] args) {
+        byte[] events = new byte[EVENTS];
+        for (int i = 0; i < EVENTS; i++) events[i] = (byte) ThreadLocalRandom.current().nextInt(GateEvent.values().length);
+        GateEvent[] byOrdinal = GateEvent.values();
+        var machine = MachineSpec.turnstile().compile();
+        byte[] out = new byte[EVENTS];
+
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            var gate = new Turnstile(e -> effects += e.ordinal() + 1);
+            report(round, "polymorphic", () -> {
+                for (byte e : events) byOrdinal[e].fire(gate);
+                return FleetEngine.STATES[0] == gate.state() ? 0 : 1;
+            });
+            report(round, "table+handler", () ->
+                    machine.run(machine.initial(), events, 0, EVENTS, (i, e) -> effects += e + 1, null));
+            report(round, "table+array", () -> {
+                int end = machine.run(machine.initial(), events, 0, EVENTS, out);
+                effects += out[EVENTS - 1];
+                return end;
+            });
+            var recorder = new TransitionRecorder(1024);
+            report(round, "table+recorder", () ->
+                    machine.run(machine.initial(), events, 0, EVENTS, (i, e) -> effects += e + 1, recorder));
+            if (round == 5) recorder.hottest(machine).forEach(System.out::println);
+        }
+    }
+
+    private interface Work { int run(); }
+
+    private static void report(int round, String name, Work work) {
+        long before = effects;
+        long t0 = System.nanoTime();
+        int end = work.run();
+        long ns = System.nanoTime() - t0;
+        System.out.printf("round %d %-15s %5.2f ns/event (end %d, effects %d)%n",
+                round, name, (double) ns / EVENTS, end, (effects - before) % 1000);
+    }
+}
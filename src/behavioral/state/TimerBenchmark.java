@@ -0,0 +1,107 @@
+package behavioral.state;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Таймауты турникетов: TimingWheel против ScheduledThreadPoolExecutor с задачей на турникет.
+// Накладные расходы — взвод, перевзвод и отмена 1M таймеров и память под них;
+// точность — опоздание срабатывания относительно срока. Упрощённый прогон без JMH.
+public class TimerBenchmark {
+    private static final int TIMERS = 1_000_000, ACCURACY_TIMERS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int round = 1; round <= 2; round++) { // первый раунд — прогрев JIT
+            long before = usedAfterGc();
+            try (var wheel = new TimingWheel(TIMERS, 10, TimeUnit.MILLISECONDS, 1024, 8, id -> {})) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < TIMERS; i++) wheel.arm(i, 60, TimeUnit.SECONDS);
+                long arm = System.nanoTime() - t0;
+                long retained = usedAfterGc() - before;
+                t0 = System.nanoTime();
+                for (int i = 0; i < TIMERS; i++) wheel.arm(i, 90, TimeUnit.SECONDS);
+                long rearm = System.nanoTime() - t0;
+                t0 = System.nanoTime();
+                for (int i = 0; i < TIMERS; i++) wheel.cancel(i);
+                long cancel = System.nanoTime() - t0;
+                report(round, "wheel", arm, rearm, cancel, retained);
+            }
+
+            before = usedAfterGc();
+            var executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            var tasks = new ScheduledFuture<?>[TIMERS];
+            Runnable noop = () -> {};
+            long t0 = System.nanoTime();
+            for (int i = 0; i < TIMERS; i++) tasks[i] = executor.schedule(noop, 60, TimeUnit.SECONDS);
+            long arm = System.nanoTime() - t0;
+            long retained = usedAfterGc() - before;
+            t0 = System.nanoTime();
+            for (int i = 0; i < TIMERS; i++) { // перевзвод = отмена + новая задача
+                tasks[i].cancel(false);
+                tasks[i] = executor.schedule(noop, 90, TimeUnit.SECONDS);
+            }
+            long rearm = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            for (int i = 0; i < TIMERS; i++) tasks[i].cancel(false);
+            long cancel = System.nanoTime() - t0;
+            report(round, "executor", arm, rearm, cancel, retained);
+            executor.shutdownNow();
+        }
+
+        // точность: таймеры со сроками 200..1200 мс, опоздание каждого срабатывания
+        long[] due = new long[ACCURACY_TIMERS];
+        long[] late = new long[ACCURACY_TIMERS];
+        var fired = new CountDownLatch(ACCURACY_TIMERS);
+        try (var wheel = new TimingWheel(ACCURACY_TIMERS, 10, TimeUnit.MILLISECONDS, 256, 8, id -> {
+            late[id] = System.nanoTime() - due[id];
+            fired.countDown();
+        })) {
+            for (int i = 0; i < ACCURACY_TIMERS; i++) {
+                long delay = ThreadLocalRandom.current().nextLong(200, 1200);
+                due[i] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                wheel.arm(i, delay, TimeUnit.MILLISECONDS);
+            }
+            fired.await();
+        }
+        accuracy("wheel", late);
+
+        var done = new CountDownLatch(ACCURACY_TIMERS);
+        var executor = new ScheduledThreadPoolExecutor(1);
+        for (int i = 0; i < ACCURACY_TIMERS; i++) {
+            int id = i;
+            long delay = ThreadLocalRandom.current().nextLong(200, 1200);
+            due[i] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            executor.schedule(() -> {
+                late[id] = System.nanoTime() - due[id];
+                done.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        done.await();
+        executor.shutdown();
+        accuracy("executor", late);
+    }
+
+    private static void report(int round, String name, long arm, long rearm, long cancel, long retained) {
+        System.out.printf("round %d %-8s x%d: arm %4d ns, re-arm %4d ns, cancel %4d ns, pending %6.1f MB (%3d B/timer)%n",
+                round, name, TIMERS, arm / TIMERS, rearm / TIMERS, cancel / TIMERS,
+                retained / 1048576.0, retained / TIMERS);
+    }
+
+    private static void accuracy(String name, long[] late) {
+        long[] sorted = late.clone();
+        Arrays.sort(sorted);
+        System.out.printf("accuracy %-8s x%d: late p50 %5.2f ms, p99 %5.2f ms, max %5.2f ms, early %d%n",
+                name, sorted.length, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6,
+                sorted[sorted.length - 1] / 1e6, Arrays.stream(sorted).filter(x -> x < 0).count());
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        var rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
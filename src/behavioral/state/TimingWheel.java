@@ -0,0 +1,169 @@
+package behavioral.state;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+// Хешированное колесо таймеров: по одному таймеру на id (турникет), arm/re-arm/cancel — O(1).
+// Таймер — узел двусвязного списка в корзине (deadline & mask) на массивах int/long: ~16 байт
+// на таймер и никаких объектов на каждый взвод. Длинные задержки проходят колесо по кругу,
+// пока не наступит их тик. Колесо поделено на шарды по id, у каждого свой замок; тики
+// отсчитывает один поток, он же вызывает onExpire вне замков.
+final class TimingWheel implements AutoCloseable {
+    private static final int NIL = -1;
+
+    private final Shard[] shards;
+    private final long tickNanos;
+    private final long start = System.nanoTime(); // тик k обрабатывается не раньше start + k * tickNanos
+    private final int mask;
+    private final IntConsumer onExpire;
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    TimingWheel(int timers, long tick, TimeUnit unit, int wheelSize, int shardCount, IntConsumer onExpire) {
+        if (Integer.bitCount(wheelSize) != 1) throw new IllegalArgumentException("wheel size must be a power of two");
+        this.tickNanos = unit.toNanos(tick);
+        this.mask = wheelSize - 1;
+        this.onExpire = onExpire;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard((timers + shardCount - 1 - i) / shardCount, wheelSize);
+        this.ticker = new Thread(this::tickLoop, "timing-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    // взводит (или перевзводит) таймер id: сработает не раньше чем через delay, с точностью до тика
+    void arm(int id, long delay, TimeUnit unit) {
+        long at = System.nanoTime() - start + unit.toNanos(delay);
+        long tick = (at + tickNanos - 1) / tickNanos; // первый тик не раньше срока
+        var s = shards[id % shards.length];
+        int i = id / shards.length;
+        s.lock.lock();
+        try {
+            if (s.deadline[i] != NIL) s.unlink(i, (int) s.deadline[i] & mask);
+            s.deadline[i] = Math.max(tick, s.tick + 1);
+            s.link(i, (int) s.deadline[i] & mask);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    void cancel(int id) {
+        var s = shards[id % shards.length];
+        int i = id / shards.length;
+        s.lock.lock();
+        try {
+            if (s.deadline[i] != NIL) {
+                s.unlink(i, (int) s.deadline[i] & mask);
+                s.deadline[i] = NIL;
+            }
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    long pending() {
+        long n = 0;
+        for (Shard s : shards) n += s.pending;
+        return n;
+    }
+
+    @Override public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tickLoop() {
+        int[] expired = new int[1024];
+        long done = 0; // сколько тиков обработано
+        while (running) {
+            long due = (System.nanoTime() - start) / tickNanos;
+            if (done >= due) {
+                LockSupport.parkNanos(start + (done + 1) * tickNanos - System.nanoTime());
+                continue;
+            }
+            done++; // опоздали — догоняем тик за тиком, ничего не пропуская
+            for (int k = 0; k < shards.length; k++) {
+                var s = shards[k];
+                int n;
+                s.lock.lock();
+                try {
+                    s.tick = done;
+                    n = s.expire(done, (int) done & mask, expired);
+                    if (n > expired.length) { // не влезло — расширяем и доснимаем
+                        expired = Arrays.copyOf(expired, n);
+                        n = s.expire(done, (int) done & mask, expired);
+                    }
+                } finally {
+                    s.lock.unlock();
+                }
+                for (int j = 0; j < n; j++) {
+                    try {
+                        onExpire.accept(expired[j] * shards.length + k);
+                    } catch (RuntimeException ex) {
+                        System.out.println("[wheel] timer callback failed: " + ex); // тикер не останавливаем
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final int[] head;
+        final int[] next, prev;
+        final long[] deadline; // тик срабатывания или NIL
+        long tick;             // последний обработанный тик
+        volatile long pending;
+
+        Shard(int timers, int wheelSize) {
+            head = new int[wheelSize];
+            Arrays.fill(head, NIL);
+            next = new int[timers];
+            prev = new int[timers];
+            deadline = new long[timers];
+            Arrays.fill(deadline, NIL);
+        }
+
+        void link(int i, int bucket) {
+            prev[i] = NIL;
+            next[i] = head[bucket];
+            if (head[bucket] != NIL) prev[head[bucket]] = i;
+            head[bucket] = i;
+            pending++;
+        }
+
+        void unlink(int i, int bucket) {
+            if (prev[i] != NIL) next[prev[i]] = next[i];
+            else head[bucket] = next[i];
+            if (next[i] != NIL) prev[next[i]] = prev[i];
+            pending--;
+        }
+
+        // снимает наступившие таймеры корзины в out; возвращает их число
+        // (если больше out.length — ничего не снимает, вызывающий расширит массив)
+        int expire(long now, int bucket, int[] out) {
+            int n = 0;
+            for (int i = head[bucket]; i != NIL; i = next[i]) if (deadline[i] <= now) n++;
+            if (n > out.length) return n;
+            n = 0;
+            for (int i = head[bucket]; i != NIL; ) {
+                int following = next[i];
+                if (deadline[i] <= now) { // остальные — на следующих кругах
+                    unlink(i, bucket);
+                    deadline[i] = NIL;
+                    out[n++] = i;
+                }
+                i = following;
+            }
+            return n;
+        }
+    }
+}
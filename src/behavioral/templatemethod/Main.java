@@ -1,6 +1,10 @@
 package behavioral.templatemethod;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 // Шаблон (Template)
 abstract class SyncJob<T> {
@@ -38,10 +42,41 @@ final class ProductSyncJob extends SyncJob<List<String>> {
     @Override protected void persist(List<String> items) { System.out.println("save products " + items); }
 }
 
+// Потоковые варианты: источник — таблица с версиями строк, читаем только изменённое после водяного знака
+final class StreamingUserSyncJob extends StreamingSyncJob<String, String> {
+    static final Map<String, Long> USERS = new ConcurrentHashMap<>(Map.of("ivan", 1L, "petr", 2L));
+
+    @Override protected void fetch(long since, Consumer<Versioned<String>> out) {
+        USERS.forEach((name, version) -> {
+            if (version > since) out.accept(new Versioned<>(name, version));
+        });
+    }
+    @Override protected String transform(String name) { return name.toUpperCase(); }
+    @Override protected void persist(List<String> users) { System.out.println("save users " + users); }
+}
+
+final class StreamingProductSyncJob extends StreamingSyncJob<String, String> {
+    @Override protected int workers() { return 2; }
+    @Override protected void fetch(long since, Consumer<Versioned<String>> out) {
+        if (since < 1) out.accept(new Versioned<>("tv", 1));
+        if (since < 2) out.accept(new Versioned<>("phone", 2));
+    }
+    @Override protected String transform(String item) { return item; }
+    @Override protected void persist(List<String> items) { System.out.println("save products " + items); }
+}
+
 // Демонстрация
 public class Main {
     public static void main(String[] args) {
         new UserSyncJob().run();    // lock -> fetch -> transform -> persist -> unlock
         new ProductSyncJob().run(); // тот же порядок, другие реализации шагов
+
+        // потоковые задачи с разными замками идут одновременно
+        var users = CompletableFuture.supplyAsync(() -> new StreamingUserSyncJob().run());
+        var products = CompletableFuture.supplyAsync(() -> new StreamingProductSyncJob().run());
+        System.out.println(users.join() + " " + products.join());
+
+        StreamingUserSyncJob.USERS.put("anna", 3L); // новая строка после водяного знака
+        System.out.println(new StreamingUserSyncJob().run()); // save users [ANNA] — только изменённое
     }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package behavioral.templatemethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Запись источника с версией (например, updatedAt): по версиям двигается водяной знак
+record Versioned<R>(R value, long version) {}
+
+// Итог прогона: сколько записей прошло, сколькими пачками сохранено и новый водяной знак
+record SyncReport(long fetched, long persisted, long batches, long watermark) {}
+
+// Потоковый шаблон: тот же скелет fetch -> transform -> persist, но стадии работают одновременно
+// и связаны ограниченными очередями. transform идёт на нескольких потоках (порядок записей не сохраняется),
+// persist получает пачки. Замок — свой у каждой партиции, а не общий, поэтому разные задачи
+// не ждут друг друга. Водяной знак — наибольшая версия из успешного прогона: следующий прогон
+// запросит у источника только то, что изменилось позже. При сбое знак не сдвигается.
+abstract class StreamingSyncJob<R, O> {
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+    private static final Map<String, Long> WATERMARKS = new ConcurrentHashMap<>();
+    private static final Object END = new Object(); // конец потока в очереди
+
+    // фиксируем скелет алгоритма
+    public final SyncReport run() {
+        var lock = LOCKS.computeIfAbsent(partition(), k -> new ReentrantLock());
+        lock.lock();
+        try {
+            return pipeline(loadWatermark());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- настройки (крючки) ---
+
+    // ключ замка и водяного знака; задачи с разными ключами идут параллельно
+    protected String partition() { return getClass().getName(); }
+    protected int workers()       { return 4; }
+    protected int queueCapacity() { return 1024; }
+    protected int batchSize()     { return 256; }
+    protected long lingerMillis() { return 5; } // сколько неполная пачка ждёт добора
+
+    // где хранится водяной знак; по умолчанию — в памяти процесса
+    protected long loadWatermark()           { return WATERMARKS.getOrDefault(partition(), Long.MIN_VALUE); }
+    protected void storeWatermark(long mark) { WATERMARKS.put(partition(), mark); }
+
+    // --- обязательные шаги ---
+
+    // отдать в out все записи с версией строго больше since
+    protected abstract void fetch(long since, Consumer<Versioned<R>> out) throws Exception;
+    protected abstract O transform(R record); // вызывается параллельно
+    protected abstract void persist(List<O> batch) throws Exception;
+
+    // --- конвейер ---
+
+    private SyncReport pipeline(long since) {
+        int workers = workers();
+        BlockingQueue<Object> raw = new ArrayBlockingQueue<>(queueCapacity());
+        BlockingQueue<Object> ready = new ArrayBlockingQueue<>(queueCapacity());
+        var fetched = new AtomicLong();
+        var persisted = new AtomicLong();
+        var batches = new AtomicLong();
+        var maxVersion = new AtomicLong(since);
+        var finishedWorkers = new AtomicLong();
+        var failure = new AtomicReference<Throwable>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers + 2, r -> {
+            var t = new Thread(r, "sync-" + getClass().getSimpleName());
+            t.setDaemon(true);
+            return t;
+        });
+        var stages = new ArrayList<Future<?>>();
+        try {
+            stages.add(pool.submit(stage(failure, pool, () -> {
+                fetch(since, record -> {
+                    fetched.incrementAndGet();
+                    maxVersion.accumulateAndGet(record.version(), Math::max);
+                    try {
+                        raw.put(record.value());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("sync cancelled");
+                    }
+                });
+                for (int i = 0; i < workers; i++) raw.put(END); // по сигналу конца на каждый воркер
+            })));
+            for (int w = 0; w < workers; w++) {
+                stages.add(pool.submit(stage(failure, pool, () -> {
+                    for (Object o; (o = raw.take()) != END; ) {
+                        @SuppressWarnings("unchecked") R record = (R) o;
+                        ready.put(transform(record));
+                    }
+                    if (finishedWorkers.incrementAndGet() == workers) ready.put(END);
+                })));
+            }
+            stages.add(pool.submit(stage(failure, pool, () -> {
+                int size = batchSize();
+                long linger = lingerMillis();
+                var batch = new ArrayList<O>(size);
+                while (true) {
+                    Object o = batch.isEmpty() ? ready.take() : ready.poll(linger, TimeUnit.MILLISECONDS);
+                    if (o == END) break;
+                    if (o == null) { // за linger ничего не пришло — пишем неполную пачку
+                        persistBatch(batch, persisted, batches);
+                        continue;
+                    }
+                    @SuppressWarnings("unchecked") O item = (O) o;
+                    batch.add(item);
+                    if (batch.size() == size) persistBatch(batch, persisted, batches);
+                }
+                if (!batch.isEmpty()) persistBatch(batch, persisted, batches); // хвост перед концом потока
+            })));
+            for (Future<?> f : stages) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } catch (RejectedExecutionException e) {
+            failure.compareAndSet(null, e); // пул уже остановлен сбоем ранней стадии — причина в failure
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) throw new IllegalStateException("sync failed: " + partition(), failure.get());
+
+        storeWatermark(maxVersion.get());
+        return new SyncReport(fetched.get(), persisted.get(), batches.get(), maxVersion.get());
+    }
+
+    private void persistBatch(List<O> batch, AtomicLong persisted, AtomicLong batches) throws Exception {
+        persist(List.copyOf(batch));
+        persisted.addAndGet(batch.size());
+        batches.incrementAndGet();
+        batch.clear();
+    }
+
+    private interface Stage { void run() throws Exception; }
+
+    // сбой любой стадии запоминается и прерывает остальные, иначе они ждали бы друг друга в очередях
+    private static Runnable stage(AtomicReference<Throwable> failure, ExecutorService pool, Stage body) {
+        return () -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // остановлены из-за чужого сбоя
+            } catch (Exception | Error e) {
+                if (failure.compareAndSet(null, e)) pool.shutdownNow();
+            }
+        };
+    }
+}
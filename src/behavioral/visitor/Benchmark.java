@@ -0,0 +1,53 @@
+package behavioral.visitor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// HtmlVisitor (StringBuilder -> String -> byte[]) против StreamingHtmlVisitor (сразу в буфер из пула)
+// на документе из миллиона частей; канал только считает байты, как быстрый сокет.
+// Упрощённый прогон без JMH: время — nanoTime, аллокации — счётчик потока HotSpot; check — байты на выходе.
+public class Benchmark {
+    private static final int PARTS = 1_000_000;
+
+    public static void main(String[] args) {
+        var doc = BenchmarkSupport.document(PARTS);
+
+        // проверка на небольшом документе с не-ASCII: байт в байт как HtmlVisitor
+        var small = BenchmarkSupport.document(10_000);
+        var html = new HtmlVisitor();
+        small.forEach(p -> p.accept(html));
+        var out = new ByteArrayOutputStream();
+        try (var v = new StreamingHtmlVisitor(Channels.newChannel(out), new BufferPool(4096), false)) {
+            small.forEach(p -> p.accept(v));
+        }
+        System.out.println("byte-identical: " + Arrays.equals(out.toByteArray(), html.result().getBytes(StandardCharsets.UTF_8)));
+
+        var pool = new BufferPool(64 * 1024);
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            BenchmarkSupport.report(round, "HtmlVisitor", PARTS, () -> {
+                var ch = new BenchmarkSupport.CountingChannel();
+                var v = new HtmlVisitor();
+                for (DocPart p : doc) p.accept(v);
+                ch.write(ByteBuffer.wrap(v.result().getBytes(StandardCharsets.UTF_8)));
+                return ch.bytes;
+            });
+            BenchmarkSupport.report(round, "streaming", PARTS, () -> {
+                var ch = new BenchmarkSupport.CountingChannel();
+                try (var v = new StreamingHtmlVisitor(ch, pool, false)) {
+                    for (DocPart p : doc) p.accept(v);
+                }
+                return ch.bytes;
+            });
+            BenchmarkSupport.report(round, "streaming+esc", PARTS, () -> {
+                var ch = new BenchmarkSupport.CountingChannel();
+                try (var v = new StreamingHtmlVisitor(ch, pool, true)) {
+                    for (DocPart p : doc) p.accept(v);
+                }
+                return ch.bytes;
+            });
+        }
+    }
+}
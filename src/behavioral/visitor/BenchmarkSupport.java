@@ -0,0 +1,64 @@
+package behavioral.visitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Общее для замеров посетителей: документ-образец, канал-счётчик, отчёт и удерживаемая память.
+// Упрощённый прогон без JMH: время — nanoTime, аллокации — счётчик потока HotSpot.
+final class BenchmarkSupport {
+    private BenchmarkSupport() {}
+
+    // канал-счётчик: принимает всё и ничего не хранит, как быстрый сокет
+    static final class CountingChannel implements WritableByteChannel {
+        long bytes;
+        public int write(ByteBuffer src) { int n = src.remaining(); src.position(src.limit()); bytes += n; return n; }
+        public boolean isOpen() { return true; }
+        public void close() {}
+    }
+
+    interface Work { long run(); }
+
+    // абзацы с '&' (есть что экранировать), жирный текст — местами кириллицей, картинки
+    static List<DocPart> document(int parts) {
+        var doc = new ArrayList<DocPart>(parts);
+        for (int i = 0; i < parts; i++) {
+            doc.add(switch (i % 3) {
+                case 0 -> new PlainText("Paragraph " + i + " with some text & more, ");
+                case 1 -> new BoldText(i % 30 == 1 ? "привет, мир " + i : "bold " + i);
+                default -> new Picture("logo-" + i);
+            });
+        }
+        return doc;
+    }
+
+    // время и аллокации вызывающего потока на часть; check не даёт JIT выбросить работу
+    static void report(int round, String name, int parts, Work work) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long a0 = threads.getThreadAllocatedBytes(tid), t0 = System.nanoTime();
+        long check = work.run();
+        long ns = System.nanoTime() - t0, alloc = threads.getThreadAllocatedBytes(tid) - a0;
+        System.out.printf("round %d %-16s %6.1f ns/part, %7.1f B/part allocated (check %d)%n",
+                round, name, (double) ns / parts, (double) alloc / parts, check);
+    }
+
+    // сколько кучи удерживает построенный объект: занятая память после System.gc() до и после
+    static long retained(Supplier<?> build) {
+        long before = usedAfterGc();
+        Object keep = build.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(keep); // keep жив до второго замера
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        var rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
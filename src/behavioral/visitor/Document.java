@@ -0,0 +1,138 @@
+package behavioral.visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Посетитель, умеющий принимать текст прямо из общего буфера Document: chars[from, to).
+// Массив не копировать и не хранить — он принадлежит документу и растёт при добавлении
+interface SpanVisitor extends DocVisitor {
+    void plain(char[] chars, int from, int to);
+    void bold(char[] chars, int from, int to);
+    void picture(char[] chars, int from, int to);
+}
+
+// Документ по столбцам: вид части — байт, границы текста — int, весь текст — в одном char[].
+// Вместо объекта-записи и String на часть — 5 байт плюс сами символы; добавление — запись в конец массивов.
+// SpanVisitor получает куски буфера без создания записей; обычному DocVisitor записи собираются на лету.
+final class Document {
+    static final byte PLAIN = 0, BOLD = 1, PICTURE = 2;
+
+    private byte[] kinds;
+    private int[] ends;   // ends[i] — конец текста части i, начало — ends[i - 1] (или 0)
+    private char[] chars;
+    private int size, length;
+
+    Document() { this(16, 256); }
+
+    Document(int parts, int chars) {
+        this.kinds = new byte[Math.max(parts, 1)];
+        this.ends = new int[Math.max(parts, 1)];
+        this.chars = new char[Math.max(chars, 1)];
+    }
+
+    // ёмкость считается заранее: лишний проход по длинам дешевле удвоения буфера на миллионах частей
+    static Document of(List<? extends DocPart> parts) {
+        long chars = 0;
+        for (DocPart p : parts) {
+            chars += switch (p) {
+                case PlainText t -> t.text().length();
+                case BoldText b  -> b.text().length();
+                case Picture pic -> pic.alt().length();
+            };
+        }
+        var doc = new Document(parts.size(), (int) Math.min(chars, Integer.MAX_VALUE - 8));
+        for (DocPart p : parts) doc.add(p);
+        return doc;
+    }
+
+    Document add(DocPart part) {
+        return switch (part) {
+            case PlainText t -> plain(t.text());
+            case BoldText b  -> bold(b.text());
+            case Picture p   -> picture(p.alt());
+        };
+    }
+
+    Document plain(String text)  { return append(PLAIN, text); }
+    Document bold(String text)   { return append(BOLD, text); }
+    Document picture(String alt) { return append(PICTURE, alt); }
+
+    int size() { return size; }
+    int length() { return length; } // символов текста во всех частях
+    byte kind(int i) { check(i); return kinds[i]; }
+    String text(int i) { check(i); return new String(chars, start(i), ends[i] - start(i)); }
+
+    // запись части i — создаётся заново при каждом вызове
+    DocPart get(int i) {
+        return switch (kind(i)) {
+            case PLAIN -> new PlainText(text(i));
+            case BOLD -> new BoldText(text(i));
+            default -> new Picture(text(i));
+        };
+    }
+
+    List<DocPart> toList() {
+        var out = new ArrayList<DocPart>(size);
+        for (int i = 0; i < size; i++) out.add(get(i));
+        return out;
+    }
+
+    void accept(DocVisitor v) { accept(0, size, v); }
+
+    void accept(int from, int to, DocVisitor v) {
+        if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException(from + ".." + to + " of " + size);
+        if (v instanceof SpanVisitor s) {
+            int start = from == 0 ? 0 : ends[from - 1];
+            for (int i = from; i < to; i++) {
+                int end = ends[i];
+                switch (kinds[i]) {
+                    case PLAIN -> s.plain(chars, start, end);
+                    case BOLD -> s.bold(chars, start, end);
+                    default -> s.picture(chars, start, end);
+                }
+                start = end;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                switch (kinds[i]) {
+                    case PLAIN -> v.visit(new PlainText(text(i)));
+                    case BOLD -> v.visit(new BoldText(text(i)));
+                    default -> v.visit(new Picture(text(i)));
+                }
+            }
+        }
+    }
+
+    // занятая массивами память без заголовков объектов; запас ёмкости тоже считается
+    long footprintBytes() { return kinds.length + 4L * ends.length + 2L * chars.length; }
+
+    private Document append(byte kind, String text) {
+        int n = text.length();
+        if (size == kinds.length) {
+            int cap = grow(size, 1);
+            kinds = Arrays.copyOf(kinds, cap);
+            ends = Arrays.copyOf(ends, cap);
+        }
+        if (chars.length - length < n) chars = Arrays.copyOf(chars, grow(length, n));
+        text.getChars(0, n, chars, length);
+        length += n;
+        kinds[size] = kind;
+        ends[size++] = length;
+        return this;
+    }
+
+    private int start(int i) { return i == 0 ? 0 : ends[i - 1]; }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i + " of " + size);
+    }
+
+    // удвоение, но не меньше нужного; за пределы int — ошибка, а не тихое переполнение
+    private static int grow(int used, int extra) {
+        long need = (long) used + extra;
+        long cap = Math.max(need, 2L * used);
+        if (need > Integer.MAX_VALUE - 8) throw new IllegalStateException("document too large: " + need);
+        return (int) Math.min(cap, Integer.MAX_VALUE - 8);
+    }
+}
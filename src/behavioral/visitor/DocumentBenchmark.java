@@ -0,0 +1,55 @@
+package behavioral.visitor;
+
+// List<DocPart> против столбцового Document на миллионе частей: удерживаемая память на часть
+// и время обхода теми же посетителями (статистика, HTML, потоковый HTML).
+// Упрощённый прогон без JMH: время — nanoTime, память — занятая куча после System.gc().
+public class DocumentBenchmark {
+    private static final int PARTS = 1_000_000;
+
+    public static void main(String[] args) {
+        long listBytes = BenchmarkSupport.retained(() -> BenchmarkSupport.document(PARTS));
+        long docBytes = BenchmarkSupport.retained(() -> Document.of(BenchmarkSupport.document(PARTS)));
+        System.out.printf("memory: list %.1f B/part, document %.1f B/part%n",
+                (double) listBytes / PARTS, (double) docBytes / PARTS);
+
+        var list = BenchmarkSupport.document(PARTS);
+        var doc = Document.of(list);
+        var pool = new BufferPool(64 * 1024);
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            BenchmarkSupport.report(round, "stats list", PARTS, () -> {
+                var v = new StatsVisitor();
+                for (DocPart p : list) p.accept(v);
+                return v.chars;
+            });
+            BenchmarkSupport.report(round, "stats document", PARTS, () -> {
+                var v = new StatsVisitor();
+                doc.accept(v);
+                return v.chars;
+            });
+            BenchmarkSupport.report(round, "html list", PARTS, () -> {
+                var v = new HtmlVisitor();
+                for (DocPart p : list) p.accept(v);
+                return v.result().length();
+            });
+            BenchmarkSupport.report(round, "html document", PARTS, () -> {
+                var v = new HtmlVisitor();
+                doc.accept(v);
+                return v.result().length();
+            });
+            BenchmarkSupport.report(round, "stream list", PARTS, () -> {
+                var ch = new BenchmarkSupport.CountingChannel();
+                try (var v = new StreamingHtmlVisitor(ch, pool, false)) {
+                    for (DocPart p : list) p.accept(v);
+                }
+                return ch.bytes;
+            });
+            BenchmarkSupport.report(round, "stream document", PARTS, () -> {
+                var ch = new BenchmarkSupport.CountingChannel();
+                try (var v = new StreamingHtmlVisitor(ch, pool, false)) {
+                    doc.accept(v);
+                }
+                return ch.bytes;
+            });
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package behavioral.visitor;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Два прохода accept()/visit() против одного слитого прохода со switch по типу,
+// и последовательная статистика против параллельной на fork-join пуле; миллион частей.
+// Упрощённый прогон без JMH: время — nanoTime.
+public class FusedBenchmark {
+    private static final int PARTS = 1_000_000;
+
+    public static void main(String[] args) {
+        var doc = BenchmarkSupport.document(PARTS);
+        var pool = ForkJoinPool.commonPool();
+        System.out.println("parallelism: " + pool.getParallelism());
+
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            BenchmarkSupport.report(round, "two passes", PARTS, () -> {
+                var html = new HtmlVisitor();
+                var stats = new StatsVisitor();
+                for (DocPart p : doc) p.accept(html);
+                for (DocPart p : doc) p.accept(stats);
+                return html.result().length() + stats.chars;
+            });
+            BenchmarkSupport.report(round, "fused", PARTS, () -> {
+                var html = new HtmlVisitor();
+                var stats = new StatsVisitor();
+                FusedTraversal.visitAll(doc, html, stats);
+                return html.result().length() + stats.chars;
+            });
+            BenchmarkSupport.report(round, "stats sequential", PARTS, () -> {
+                var stats = new StatsVisitor();
+                FusedTraversal.visitAll(doc, stats);
+                return stats.chars;
+            });
+            BenchmarkSupport.report(round, "stats parallel", PARTS, () -> FusedTraversal.parallel(doc, new StatsVisitor(), pool).chars);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package behavioral.visitor;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Посетитель, чей результат не зависит от порядка частей: куски документа можно обойти
+// независимыми частичными экземплярами и потом слить
+interface CommutativeVisitor<V extends CommutativeVisitor<V>> extends DocVisitor {
+    V newPartial();      // пустой частичный результат того же вида
+    void merge(V other); // добавить к себе результат другого куска
+}
+
+// Обход без двойной диспетчеризации: DocPart запечатан, поэтому исчерпывающий switch по типу
+// заменяет accept()/visit() на каждую часть, а все посетители обслуживаются за один проход
+final class FusedTraversal {
+    private static final int CHUNK = 8192; // меньше — не делим, накладные расходы fork-join дороже
+
+    private FusedTraversal() {}
+
+    // итератором: так и LinkedList проходится за линейное время
+    static void visitAll(List<? extends DocPart> doc, DocVisitor... visitors) {
+        for (DocPart part : doc) visit(part, visitors);
+    }
+
+    // Параллельный режим для коммутативных посетителей: куски документа обходятся на fork-join пуле,
+    // у каждого куска свой частичный результат, в конце всё сливается в into.
+    // Куски режутся по индексам, поэтому список нужен с произвольным доступом (ArrayList, List.of)
+    static <V extends CommutativeVisitor<V>> V parallel(List<? extends DocPart> doc, V into) {
+        return parallel(doc, into, ForkJoinPool.commonPool());
+    }
+
+    static <V extends CommutativeVisitor<V>> V parallel(List<? extends DocPart> doc, V into, ForkJoinPool pool) {
+        if (!(doc instanceof RandomAccess)) {
+            throw new IllegalArgumentException("parallel traversal needs a RandomAccess list: " + doc.getClass().getSimpleName());
+        }
+        if (doc.size() <= CHUNK) {
+            visitRange(doc, 0, doc.size(), into);
+            return into;
+        }
+        pool.invoke(new Split<>(doc, 0, doc.size(), into));
+        return into;
+    }
+
+    private static void visitRange(List<? extends DocPart> doc, int from, int to, DocVisitor visitor) {
+        var visitors = new DocVisitor[]{visitor}; // один массив на кусок, а не varargs на каждую часть
+        for (int i = from; i < to; i++) visit(doc.get(i), visitors);
+    }
+
+    private static void visit(DocPart part, DocVisitor... visitors) {
+        switch (part) {
+            case PlainText t -> { for (DocVisitor v : visitors) v.visit(t); }
+            case BoldText b  -> { for (DocVisitor v : visitors) v.visit(b); }
+            case Picture p   -> { for (DocVisitor v : visitors) v.visit(p); }
+        }
+    }
+
+    // делим пополам до CHUNK; правая половина — в свой частичный результат, левая — в результат родителя
+    @SuppressWarnings("serial") // задача живёт только внутри пула, не сериализуется
+    private static final class Split<V extends CommutativeVisitor<V>> extends RecursiveAction {
+        private final List<? extends DocPart> doc;
+        private final int from, to;
+        private final V into;
+
+        Split(List<? extends DocPart> doc, int from, int to, V into) {
+            this.doc = doc; this.from = from; this.to = to; this.into = into;
+        }
+
+        @Override protected void compute() {
+            if (to - from <= CHUNK) {
+                visitRange(doc, from, to, into);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            V right = into.newPartial();
+            var rightTask = new Split<>(doc, mid, to, right);
+            rightTask.fork();
+            new Split<>(doc, from, mid, into).compute();
+            rightTask.join();
+            into.merge(right);
+        }
+    }
+}
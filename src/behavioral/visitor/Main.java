@@ -1,5 +1,10 @@
 package behavioral.visitor;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 // Элементы (Element)
@@ -21,21 +26,30 @@ interface DocVisitor {
 }
 
 // Операция 1: HTML-рендер (элементы не меняем)
-final class HtmlVisitor implements DocVisitor {
+final class HtmlVisitor implements SpanVisitor {
     private final StringBuilder out = new StringBuilder();
     public void visit(PlainText t){ out.append(t.text()); }
     public void visit(BoldText t) { out.append("<b>").append(t.text()).append("</b>"); }
     public void visit(Picture p)  { out.append("<img alt='").append(p.alt()).append("'/>"); }
+    // то же прямо из буфера Document
+    public void plain(char[] c, int from, int to)  { out.append(c, from, to - from); }
+    public void bold(char[] c, int from, int to)   { out.append("<b>").append(c, from, to - from).append("</b>"); }
+    public void picture(char[] c, int from, int to){ out.append("<img alt='").append(c, from, to - from).append("'/>"); }
     String result(){ return out.toString(); }
 }
 
-// Операция 2: статистика
-final class StatsVisitor implements DocVisitor {
+// Операция 2: статистика (сумма не зависит от порядка — можно считать кусками параллельно)
+final class StatsVisitor implements CommutativeVisitor<StatsVisitor>, SpanVisitor {
     int images, chars;
     private void add(String s){ chars += s.length(); }
     public void visit(PlainText t){ add(t.text()); }
     public void visit(BoldText t) { add(t.text()); }
     public void visit(Picture p)  { images++; }
+    public void plain(char[] c, int from, int to)  { chars += to - from; }
+    public void bold(char[] c, int from, int to)   { chars += to - from; }
+    public void picture(char[] c, int from, int to){ images++; }
+    public StatsVisitor newPartial() { return new StatsVisitor(); }
+    public void merge(StatsVisitor o) { images += o.images; chars += o.chars; }
 }
 
 // Демонстрация
@@ -50,10 +64,30 @@ public class Main {
         var html  = new HtmlVisitor();
         var stats = new StatsVisitor();
 
-        doc.forEach(p -> p.accept(html));
-        doc.forEach(p -> p.accept(stats));
+        FusedTraversal.visitAll(doc, html, stats); // оба посетителя за один проход
 
         System.out.println(html.result()); // Hello <b>world</b><img alt='logo'/>
         System.out.println("chars=" + stats.chars + ", images=" + stats.images); // chars=10, images=1
+
+        // Потоковый рендер: байты UTF-8 уходят в канал по мере заполнения буфера из пула
+        var bytes = new ByteArrayOutputStream();
+        var pool = new BufferPool(8192);
+        try (var streaming = new StreamingHtmlVisitor(Channels.newChannel(bytes), pool, false)) {
+            doc.forEach(p -> p.accept(streaming));
+        }
+        System.out.println("streamed identical: "
+                + Arrays.equals(bytes.toByteArray(), html.result().getBytes(StandardCharsets.UTF_8))); // true
+
+        // Коммутативную статистику большого документа считаем кусками на fork-join пуле
+        var big = new ArrayList<DocPart>();
+        for (int i = 0; i < 100_000; i++) big.addAll(doc);
+        var total = FusedTraversal.parallel(big, new StatsVisitor());
+        System.out.println("big: chars=" + total.chars + ", images=" + total.images); // chars=1100000, images=100000
+
+        // Тот же документ по столбцам: посетители читают текст из общего буфера, записи не создаются
+        var columns = Document.of(doc);
+        var columnHtml = new HtmlVisitor();
+        columns.accept(columnHtml);
+        System.out.println("columnar identical: " + columnHtml.result().equals(html.result())); // true
     }
 }
@@ -0,0 +1,158 @@
+package behavioral.visitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Пул буферов одного размера: рендер берёт буфер на время работы и возвращает при close()
+final class BufferPool {
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    // рендер пишет в буфер целиком самую длинную разметку ("<img alt='") и замену символа (MAX_CHAR_BYTES)
+    static final int MIN_CHUNK = 10;
+
+    private final int chunkSize;
+
+    BufferPool(int chunkSize) {
+        if (chunkSize < MIN_CHUNK) throw new IllegalArgumentException("chunk size must be at least " + MIN_CHUNK + ": " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer b = free.poll();
+        return b != null ? b.clear() : ByteBuffer.allocate(chunkSize);
+    }
+
+    void release(ByteBuffer b) { free.offer(b); }
+}
+
+// Операция 1, потоковая: тот же HTML, что у HtmlVisitor, но сразу байтами UTF-8 в буфер из пула;
+// заполненный буфер сбрасывается в канал (файл, сокет). Документ целиком в памяти не собирается.
+// escape = false — байт в байт как HtmlVisitor (он ничего не экранирует); true — экранирует & < > " '.
+final class StreamingHtmlVisitor implements SpanVisitor, AutoCloseable {
+    private static final int MAX_CHAR_BYTES = 6; // самая длинная замена: &quot;
+
+    private final WritableByteChannel channel;
+    private final BufferPool pool;
+    private final boolean escape;
+    private ByteBuffer buf;
+    private byte[] bytes; // массив буфера: пишем по индексу, без проверок ByteBuffer на каждый байт
+    private int pos;
+    private long written;
+    private char[] scratch = new char[256]; // символы String копируются сюда, кодер один на String и Document
+    private char high; // старшая половина пары в конце прошлой части; 0 — нет. Пара через границу частей — как у HtmlVisitor
+
+    StreamingHtmlVisitor(WritableByteChannel channel, BufferPool pool, boolean escape) {
+        this.channel = channel;
+        this.pool = pool;
+        this.escape = escape;
+        this.buf = pool.acquire();
+        this.bytes = buf.array();
+    }
+
+    public void visit(PlainText t) { text(t.text()); }
+    public void visit(BoldText t)  { ascii("<b>"); text(t.text()); ascii("</b>"); }
+    public void visit(Picture p)   { ascii("<img alt='"); text(p.alt()); ascii("'/>"); }
+    public void plain(char[] c, int from, int to)   { text(c, from, to); }
+    public void bold(char[] c, int from, int to)    { ascii("<b>"); text(c, from, to); ascii("</b>"); }
+    public void picture(char[] c, int from, int to) { ascii("<img alt='"); text(c, from, to); ascii("'/>"); }
+
+    long written() { return written + pos; }
+
+    // дописывает остаток в канал и возвращает буфер в пул; канал не закрывает
+    @Override public void close() {
+        if (buf == null) return;
+        try {
+            orphan();
+            flush();
+        } finally {
+            pool.release(buf);
+            buf = null;
+            bytes = null;
+        }
+    }
+
+    // разметка — только ASCII и без экранирования
+    private void ascii(String s) {
+        orphan();
+        int n = s.length();
+        if (bytes.length - pos < n) flush();
+        for (int i = 0; i < n; i++) bytes[pos++] = (byte) s.charAt(i);
+    }
+
+    // Кодирование UTF-8 вручную: без промежуточных byte[]; одинокий суррогат — '?', как у String.getBytes
+    private void text(String s) {
+        int n = s.length();
+        if (scratch.length < n) scratch = new char[Math.max(n, 2 * scratch.length)];
+        s.getChars(0, n, scratch, 0);
+        text(scratch, 0, n);
+    }
+
+    private void text(char[] s, int from, int to) {
+        if (from == to) return; // пустая часть пару не разрывает
+        byte[] b = bytes;
+        if (high != 0 && Character.isLowSurrogate(s[from])) {
+            if (b.length - pos < MAX_CHAR_BYTES) flush();
+            codePoint(b, Character.toCodePoint(high, s[from++]));
+            high = 0;
+        }
+        orphan();
+        for (int i = from; i < to; i++) {
+            if (b.length - pos < MAX_CHAR_BYTES) flush();
+            char c = s[i];
+            if (c < 0x80) {
+                if (escape) {
+                    switch (c) {
+                        case '&' -> { ascii("&amp;"); continue; }
+                        case '<' -> { ascii("&lt;"); continue; }
+                        case '>' -> { ascii("&gt;"); continue; }
+                        case '"' -> { ascii("&quot;"); continue; }
+                        case '\'' -> { ascii("&#39;"); continue; }
+                        default -> { }
+                    }
+                }
+                b[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                b[pos++] = (byte) (0xC0 | c >> 6);
+                b[pos++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s[i + 1])) {
+                codePoint(b, Character.toCodePoint(c, s[++i]));
+            } else if (Character.isHighSurrogate(c) && i + 1 == to) {
+                high = c; // пара может закончиться в следующей части
+            } else if (Character.isSurrogate(c)) {
+                b[pos++] = '?';
+            } else {
+                b[pos++] = (byte) (0xE0 | c >> 12);
+                b[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[pos++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private void codePoint(byte[] b, int cp) {
+        b[pos++] = (byte) (0xF0 | cp >> 18);
+        b[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+        b[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+        b[pos++] = (byte) (0x80 | cp & 0x3F);
+    }
+
+    // отложенная старшая половина так и осталась без пары — '?', как у String.getBytes
+    private void orphan() {
+        if (high == 0) return;
+        high = 0;
+        if (bytes.length - pos < 1) flush();
+        bytes[pos++] = '?';
+    }
+
+    private void flush() {
+        buf.clear().limit(pos);
+        try {
+            while (buf.hasRemaining()) written += channel.write(buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pos = 0;
+        }
+    }
+}
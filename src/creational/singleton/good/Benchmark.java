@@ -0,0 +1,60 @@
+package creational.singleton.good;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Замер: прежняя последовательная загрузка одним запросом против параллельной по чанкам.
+// Документ 32 МБ, «облако» отдаёт 40 МБ/с на соединение и 50 мс задержки на запрос.
+public class Benchmark {
+    private static final int SIZE = 32 << 20;
+
+    public static void main(String[] args) throws Exception {
+        var source = new SimulatedRangeSource(SIZE, 50, 40L << 20);
+        Path dir = Files.createTempDirectory("config");
+
+        // 1) как в старом конструкторе: одним потоком, первый байт доступен только в конце
+        long t0 = System.nanoTime();
+        try (var out = FileChannel.open(dir.resolve("seq.bin"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var buf = ByteBuffer.allocate(SIZE);
+            source.read(0, buf);
+            out.write(buf.flip(), 0);
+        }
+        long seq = System.nanoTime() - t0;
+        report("sequential", seq, seq);
+
+        // 2) чанки по 2 МБ на 8 потоках
+        Path target = dir.resolve("chunked.bin");
+        long t1 = System.nanoTime();
+        try (var loader = new ChunkedLoader(source, target, 2 << 20, 8)) {
+            var done = loader.start();
+            loader.section(0, 1024).join(); // читаем начало, не дожидаясь всего документа
+            long ttfb = System.nanoTime() - t1;
+            done.join();
+            report("chunked x8", System.nanoTime() - t1, ttfb);
+        }
+
+        // 3) повторный запуск: все чанки уже проверены в манифесте — докачивать нечего
+        long t2 = System.nanoTime();
+        try (var loader = new ChunkedLoader(source, target, 2 << 20, 8)) {
+            loader.start().join();
+            report("resumed", System.nanoTime() - t2, loader.timeToFirstByteMillis() * 1_000_000);
+        }
+        cleanup(dir);
+    }
+
+    private static void report(String name, long totalNanos, long ttfbNanos) {
+        System.out.printf("%-11s total %7.1f ms, first byte %7.1f ms, %6.1f MB/s%n",
+                name, totalNanos / 1e6, ttfbNanos / 1e6, (SIZE / 1048576.0) / (totalNanos / 1e9));
+    }
+
+    private static void cleanup(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
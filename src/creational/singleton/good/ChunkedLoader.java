@@ -0,0 +1,223 @@
+package creational.singleton.good;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// Источник большого документа: умеет отдавать произвольный диапазон байтов
+// и контрольную сумму диапазона на своей стороне — ею проверяется то, что пришло по сети
+interface RangeSource {
+    long size();
+    void read(long offset, ByteBuffer dst) throws IOException; // заполняет dst целиком
+    int crc32(long offset, int length) throws IOException;
+}
+
+// Источник-файл (локальная копия или NFS)
+final class FileRangeSource implements RangeSource {
+    private final FileChannel ch;
+
+    FileRangeSource(Path file) throws IOException { this.ch = FileChannel.open(file, StandardOpenOption.READ); }
+
+    @Override public long size() {
+        try { return ch.size(); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    @Override public void read(long offset, ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, offset);
+            if (n < 0) throw new IOException("unexpected EOF at " + offset);
+            offset += n;
+        }
+    }
+
+    @Override public int crc32(long offset, int length) throws IOException {
+        return ChunkedLoader.crc(ch.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+}
+
+// Заглушка «облака»: детерминированные байты, задержка на запрос и скорость на соединение
+final class SimulatedRangeSource implements RangeSource {
+    private final long size;
+    private final long latencyMillis;
+    private final long bytesPerSecond;
+
+    SimulatedRangeSource(long size, long latencyMillis, long bytesPerSecond) {
+        this.size = size; this.latencyMillis = latencyMillis; this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override public long size() { return size; }
+
+    @Override public void read(long offset, ByteBuffer dst) throws IOException {
+        int len = dst.remaining();
+        try {
+            Thread.sleep(latencyMillis + len * 1000L / bytesPerSecond);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+        for (int i = 0; i < len; i++) dst.put(at(offset + i));
+    }
+
+    // сумму «облако» считает у себя: без задержки и скорости соединения
+    @Override public int crc32(long offset, int length) {
+        var crc = new CRC32();
+        var block = new byte[8192];
+        for (int done = 0; done < length; ) {
+            int n = Math.min(block.length, length - done);
+            for (int i = 0; i < n; i++) block[i] = at(offset + done + i);
+            crc.update(block, 0, n);
+            done += n;
+        }
+        return (int) crc.getValue();
+    }
+
+    private static byte at(long position) { return (byte) (position * 31); }
+}
+
+// Загрузчик: документ режется на диапазоны фиксированного размера, диапазоны качаются
+// параллельно на ограниченном пуле, сверяются с CRC32 источника и пишутся в заранее выделенный
+// memory-mapped файл. Манифест (target.chunks) помнит проверенные чанки — после сбоя
+// повторный start() докачивает только недостающее. Готовые участки можно читать сразу.
+final class ChunkedLoader implements AutoCloseable {
+    private static final int ATTEMPTS = 3;
+
+    private final RangeSource source;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final FileChannel data;
+    private final MappedByteBuffer manifest;   // на чанк: long = (1 << 32) | crc, 0 — не загружен
+    private final ExecutorService pool;
+    private final CompletableFuture<?>[] chunks;
+    private final long startedAtNanos = System.nanoTime();
+    private final AtomicLong firstByteNanos = new AtomicLong();
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    ChunkedLoader(RangeSource source, Path target, int chunkSize, int parallelism) throws IOException {
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) ((source.size() + chunkSize - 1) / chunkSize);
+        this.data = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (data.size() != source.size()) data.truncate(source.size()).write(ByteBuffer.allocate(1), source.size() - 1);
+        try (var m = FileChannel.open(target.resolveSibling(target.getFileName() + ".chunks"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.manifest = m.map(FileChannel.MapMode.READ_WRITE, 0, (long) chunkCount * Long.BYTES);
+        }
+        this.pool = Executors.newFixedThreadPool(parallelism, r -> {
+            var t = new Thread(r, "config-chunk-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        this.chunks = new CompletableFuture<?>[chunkCount];
+        for (int i = 0; i < chunkCount; i++) chunks[i] = new CompletableFuture<>();
+    }
+
+    // Запускает (или возобновляет) загрузку; future завершается, когда проверены все чанки
+    CompletableFuture<Void> start() {
+        for (int i = 0; i < chunkCount; i++) {
+            if (chunks[i].isDone() && !chunks[i].isCompletedExceptionally()) continue;
+            if (chunks[i].isCompletedExceptionally()) chunks[i] = new CompletableFuture<>();
+            if (isVerifiedOnDisk(i)) { markLoaded(i); continue; } // возобновление
+            int chunk = i;
+            pool.execute(() -> fetch(chunk));
+        }
+        return CompletableFuture.allOf(chunks);
+    }
+
+    // Участок документа, доступный сразу после загрузки покрывающих его чанков
+    CompletableFuture<ByteBuffer> section(long offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > source.size()) {
+            throw new IndexOutOfBoundsException("section " + offset + "+" + length + " of " + source.size());
+        }
+        if (length == 0) return CompletableFuture.completedFuture(ByteBuffer.allocate(0).asReadOnlyBuffer());
+        int from = (int) (offset / chunkSize), to = (int) ((offset + length - 1) / chunkSize);
+        var needed = new CompletableFuture<?>[to - from + 1];
+        for (int i = from; i <= to; i++) needed[i - from] = chunks[i];
+        return CompletableFuture.allOf(needed).thenApply(v -> {
+            try {
+                return data.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    boolean isLoaded(int chunk) { return chunks[chunk].isDone() && !chunks[chunk].isCompletedExceptionally(); }
+
+    long loadedBytes() { return loadedBytes.get(); }
+
+    // -1 — ни один чанк ещё не готов
+    long timeToFirstByteMillis() {
+        long first = firstByteNanos.get();
+        return first == 0 ? -1 : (first - startedAtNanos) / 1_000_000;
+    }
+
+    @Override public void close() throws IOException {
+        pool.shutdownNow();
+        data.close();
+    }
+
+    private void fetch(int chunk) {
+        long offset = (long) chunk * chunkSize;
+        int len = (int) Math.min(chunkSize, source.size() - offset);
+        Throwable last = null;
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            try {
+                int crc = source.crc32(offset, len);
+                var buf = ByteBuffer.allocate(len);
+                source.read(offset, buf);
+                buf.flip();
+                if (crc(buf.duplicate()) != crc) throw new IOException("corrupted transfer of chunk " + chunk);
+
+                MappedByteBuffer dst = data.map(FileChannel.MapMode.READ_WRITE, offset, len);
+                dst.put(buf);
+                dst.force();
+                if (crc(dst.flip()) != crc) throw new IOException("checksum mismatch in chunk " + chunk);
+
+                manifest.putLong(chunk * Long.BYTES, (1L << 32) | (crc & 0xFFFFFFFFL));
+                manifest.force();
+                markLoaded(chunk);
+                return;
+            } catch (IOException e) {
+                last = e; // сбой передачи — пробуем ещё раз
+            } catch (Throwable e) { // ошибка источника не лечится повтором, но future чанка обязана завершиться
+                last = e;
+                break;
+            }
+        }
+        // манифест не отмечен — следующий start() подхватит чанк заново
+        chunks[chunk].completeExceptionally(last);
+    }
+
+    private boolean isVerifiedOnDisk(int chunk) {
+        long entry = manifest.getLong(chunk * Long.BYTES);
+        if ((entry >>> 32) != 1) return false;
+        try {
+            long offset = (long) chunk * chunkSize;
+            int len = (int) Math.min(chunkSize, source.size() - offset);
+            return crc(data.map(FileChannel.MapMode.READ_ONLY, offset, len)) == (int) entry;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void markLoaded(int chunk) {
+        firstByteNanos.compareAndSet(0, System.nanoTime());
+        loadedBytes.addAndGet(Math.min(chunkSize, source.size() - (long) chunk * chunkSize));
+        chunks[chunk].complete(null);
+    }
+
+    static int crc(ByteBuffer b) {
+        var crc = new CRC32();
+        crc.update(b);
+        return (int) crc.getValue();
+    }
+}
@@ -1,31 +1,158 @@
 package creational.singleton.good;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Неизменяемый снимок конфигурации: перезагрузка подменяет его целиком;
+// document — загруженный документ, отображённый в память только для чтения
+record ConfigSnapshot(long version, Instant loadedAt, ByteBuffer document) {}
+
 final class RemoteConfig {
-    // приватный конструктор
+    private static final Duration RELOAD_PERIOD = Duration.ofMinutes(5);
+    // «облако» с документом: 64 МБ, 40 МБ/с на соединение, 50 мс на запрос; качаем по 4 МБ в 8 потоков
+    private static final RangeSource SOURCE = new SimulatedRangeSource(64 << 20, 50, 40L << 20);
+    private static final int CHUNK = 4 << 20, PARALLELISM = 8;
+    private static final Duration FIRST_RETRY = Duration.ofSeconds(1); // до первой удачи — повтор с удвоением паузы
+
+    private volatile ConfigSnapshot current; // горячий путь: одно volatile-чтение, без блокировок
+    private volatile Throwable lastFailure;
+    private final CompletableFuture<ConfigSnapshot> firstLoad = new CompletableFuture<>();
+    // только поток loader: номер последней удачной версии и пауза до следующего повтора
+    private long version;
+    private long retryMillis = FIRST_RETRY.toMillis();
+    private boolean retryScheduled;
+    private Path documents; // каталог версий документа, создаётся при первой загрузке
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "remote-config-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // приватный конструктор: ничего не ждёт, только запускает загрузку в фоне
     private RemoteConfig() {
-        System.out.println("Грузим документ размером в 100 Гб" +
-                " из облака со скоростью 10 Мб/сек");
-        try { Thread.sleep(3000); } catch (InterruptedException e) {} // очень долго
+        loader.execute(this::reload);
+        loader.scheduleWithFixedDelay(this::reload,
+                RELOAD_PERIOD.toMillis(), RELOAD_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     private static class Holder {
         static final RemoteConfig I = new RemoteConfig();
     }
 
-    // глобальная точка доступа
-    public static RemoteConfig get() { return Holder.I; }
+    // вызвать при старте приложения — загрузка начнётся сразу, а не на первом get()
+    public static void preload() { Objects.requireNonNull(Holder.I); } // обращение к Holder создаёт синглтон
+
+    // глобальная точка доступа: блокирует только до первой успешной загрузки
+    public static ConfigSnapshot get() {
+        ConfigSnapshot s = Holder.I.current;
+        return s != null ? s : Holder.I.firstLoad.join();
+    }
+
+    public static CompletableFuture<ConfigSnapshot> getAsync() {
+        ConfigSnapshot s = Holder.I.current;
+        return s != null ? CompletableFuture.completedFuture(s) : Holder.I.firstLoad.copy();
+    }
+
+    // последняя ошибка загрузки (null — последняя попытка успешна)
+    public static Throwable lastFailure() { return Holder.I.lastFailure; }
+
+    public static void reloadNow() { Holder.I.loader.execute(Holder.I::reload); }
+
+    private void reload() {
+        try {
+            var next = fetch(version + 1); // номер занимает только удачная загрузка
+            version = next.version();
+            retryMillis = FIRST_RETRY.toMillis();
+            current = next; // атомарная подмена: читатели видят либо старый, либо новый снимок
+            lastFailure = null;
+            firstLoad.complete(next);
+            forget(next.version() - 1); // отображение старой версии у её читателей остаётся в силе
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reportFailure(e);
+        } catch (ExecutionException e) {
+            reportFailure(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            reportFailure(e);
+        }
+    }
+
+    // при ошибке остаётся последний удачный снимок; пока его нет — firstLoad ждёт, а загрузка повторяется
+    private void reportFailure(Throwable e) {
+        lastFailure = e;
+        var s = current;
+        System.out.println("Конфигурация не обновилась (" + e + "), работаем на версии "
+                + (s == null ? "—" : s.version()));
+        if (s == null && !retryScheduled) {
+            retryScheduled = true;
+            loader.schedule(this::retry, retryMillis, TimeUnit.MILLISECONDS);
+            retryMillis = Math.min(2 * retryMillis, RELOAD_PERIOD.toMillis());
+        }
+    }
+
+    private void retry() {
+        retryScheduled = false;
+        if (current == null) reload();
+    }
+
+    // чанки качаются параллельно и сверяются с суммами источника; после сбоя та же версия
+    // грузится в тот же файл, и ChunkedLoader докачивает только непроверенные чанки
+    private ConfigSnapshot fetch(long version) throws IOException, InterruptedException, ExecutionException {
+        if (documents == null) {
+            documents = Files.createTempDirectory("remote-config");
+            documents.toFile().deleteOnExit(); // удаляется последним, когда файлы версий уже удалены
+        }
+        document(version).toFile().deleteOnExit();
+        manifest(version).toFile().deleteOnExit();
+        System.out.println("Грузим документ v" + version + " (" + (SOURCE.size() >> 20) + " МБ) из облака чанками по "
+                + (CHUNK >> 20) + " МБ в " + PARALLELISM + " потоков");
+        try (var loader = new ChunkedLoader(SOURCE, document(version), CHUNK, PARALLELISM)) {
+            loader.start().get();
+            return new ConfigSnapshot(version, Instant.now(), loader.section(0, (int) SOURCE.size()).get());
+        }
+    }
+
+    private Path document(long version) { return documents.resolve("config-v" + version + ".bin"); }
+    private Path manifest(long version) { return documents.resolve("config-v" + version + ".bin.chunks"); }
+
+    private void forget(long version) {
+        if (version < 1) return;
+        try {
+            Files.deleteIfExists(document(version));
+            Files.deleteIfExists(manifest(version));
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить документ v" + version + ": " + e);
+        }
+    }
 }
 
 final class MarketService {
-    private final RemoteConfig cfg = RemoteConfig.get();
+    private final ConfigSnapshot cfg = RemoteConfig.get();
 }
 final class BillingService {
-    private final RemoteConfig cfg = RemoteConfig.get();
+    private final ConfigSnapshot cfg = RemoteConfig.get();
 }
 
 public class Main {
     public static void main(String[] args) {
-        new MarketService(); // Loading...
+        RemoteConfig.preload(); // загрузка пошла в фоне
+        var ready = RemoteConfig.getAsync()
+                .thenAccept(c -> System.out.println("Конфигурация v" + c.version() + " готова, "
+                        + (c.document().capacity() >> 20) + " МБ"));
+        System.out.println("Поднимаем остальное, пока конфиг грузится...");
+
+        new MarketService(); // ждёт только остаток первой загрузки
         new BillingService(); // чиллаут.
+        ready.join();
     }
-}
\ No newline at end of file
+}
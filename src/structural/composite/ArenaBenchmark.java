@@ -0,0 +1,73 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+// Меню на миллион блюд: полный рекурсивный обход объектов Section/Dish против линейного прохода
+// по массивам MenuArena и параллельного подсчёта на fork-join; рендер; перевод туда и обратно;
+// цепочка из 100 тысяч вложенных разделов, на которой рекурсивный рендер падает.
+// Упрощённый прогон без JMH: время — nanoTime.
+public class ArenaBenchmark {
+    private static final int GROUPS = 200, SECTIONS = 50, DISHES = 100;
+
+    // приёмник-счётчик: отступы цепочки — миллиарды символов, хранить их незачем
+    private static final class Counting implements Appendable {
+        long chars;
+        public Appendable append(CharSequence s) { chars += s.length(); return this; }
+        public Appendable append(CharSequence s, int from, int to) { chars += to - from; return this; }
+        public Appendable append(char c) { chars++; return this; }
+    }
+
+    public static void main(String[] args) throws IOException {
+        var menu = BenchmarkSupport.menu(GROUPS, SECTIONS, DISHES);
+        var pool = ForkJoinPool.commonPool();
+        System.out.println("parallelism: " + pool.getParallelism());
+        var arena = MenuArena.from(menu);
+        var shared = new StringBuilder();
+
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            BenchmarkSupport.report(round, "walk objects", 10, () -> walk(menu).dishes());
+            BenchmarkSupport.report(round, "scan arena", 10, () -> arena.totals(0).dishes());
+            BenchmarkSupport.report(round, "fork-join arena", 10, () -> arena.totals(pool).dishes());
+            BenchmarkSupport.report(round, "render objects", 5, () -> {
+                shared.setLength(0);
+                menu.render(shared, "", 0);
+                return shared.length();
+            });
+            BenchmarkSupport.report(round, "render arena", 5, () -> {
+                shared.setLength(0);
+                arena.render(shared, "");
+                return shared.length();
+            });
+            BenchmarkSupport.report(round, "objects -> arena", 3, () -> MenuArena.from(menu).size());
+            BenchmarkSupport.report(round, "arena -> objects", 3, () -> arena.toNode().countDishes());
+        }
+
+        var chain = new Section("0");
+        var cur = chain;
+        for (int i = 1; i < 100_000; i++) {
+            var s = new Section("Раздел " + i);
+            cur.add(s);
+            cur = s;
+        }
+        cur.add(new Dish("Дно", 1));
+        try {
+            chain.render(new Counting(), "", 0);
+            System.out.println("deep objects: ok");
+        } catch (StackOverflowError e) {
+            System.out.println("deep objects: StackOverflowError");
+        }
+        var deep = MenuArena.from(chain);
+        var out = new Counting();
+        deep.render(out, "");
+        System.out.println("deep arena: " + deep.size() + " nodes, " + out.chars + " chars, " + deep.totals(pool));
+    }
+
+    // полный обход без кешей Section — столько же работы, сколько у массивов
+    private static MenuTotals walk(MenuNode n) {
+        if (n instanceof Dish d) return new MenuTotals(1, d.priceRub(), d.priceRub(), d.priceRub());
+        var t = MenuTotals.EMPTY;
+        for (MenuNode c : ((Section) n).children()) t = t.plus(walk(c));
+        return t;
+    }
+}
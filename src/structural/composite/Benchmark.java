@@ -0,0 +1,64 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.util.Random;
+
+// Запросы к меню на 300 тысяч блюд: прежний обход поддерева потоком на каждый вызов
+// против кешированных агрегатов; правка + запрос; рендер склейкой строк против потокового.
+// Упрощённый прогон без JMH: время — nanoTime.
+public class Benchmark {
+    private static final int GROUPS = 100, SECTIONS = 30, DISHES = 100;
+
+    public static void main(String[] args) throws IOException {
+        var menu = BenchmarkSupport.menu(GROUPS, SECTIONS, DISHES);
+        var rnd = new Random(1);
+        var shared = new StringBuilder();
+        var leaves = new Section[GROUPS * SECTIONS];
+        int k = 0;
+        for (MenuNode g : menu.children()) for (MenuNode s : ((Section) g).children()) leaves[k++] = (Section) s;
+        System.out.println("dishes: " + menu.countDishes());
+
+        for (int round = 1; round <= 5; round++) { // первые раунды — прогрев JIT
+            BenchmarkSupport.report(round, "query stream", 20, () -> count(menu) + sum(menu));
+            BenchmarkSupport.report(round, "query cached", 1_000_000, () -> menu.countDishes() + menu.totalPrice() + menu.minPrice() + menu.maxPrice());
+            BenchmarkSupport.report(round, "add + query", 1_000_000, () -> {
+                var leaf = leaves[rnd.nextInt(leaves.length)];
+                var d = new Dish("Новинка", 100 + rnd.nextInt(900));
+                leaf.add(d);
+                long r = menu.countDishes() + menu.maxPrice();
+                leaf.remove(d);
+                return r;
+            });
+            BenchmarkSupport.report(round, "remove min + query", 10_000, () -> { // уходит крайнее — путь пересчитывается
+                var leaf = leaves[rnd.nextInt(leaves.length)];
+                var d = new Dish("Дешёвое", 1);
+                leaf.add(d);
+                leaf.remove(d);
+                return menu.countDishes() + menu.minPrice();
+            });
+            BenchmarkSupport.report(round, "render concat", 20, () -> oldRender(menu, "").length());
+            BenchmarkSupport.report(round, "render stream", 20, () -> { // один общий буфер на все прогоны
+                shared.setLength(0);
+                menu.render(shared, "", 0);
+                return shared.length();
+            });
+        }
+    }
+
+    // прежние реализации: обход потоком и склейка отступов на каждом уровне
+    private static int count(MenuNode n) {
+        return n instanceof Section s ? s.children().stream().mapToInt(Benchmark::count).sum() : 1;
+    }
+
+    private static long sum(MenuNode n) {
+        return n instanceof Section s ? s.children().stream().mapToLong(Benchmark::sum).sum() : ((Dish) n).priceRub();
+    }
+
+    private static String oldRender(MenuNode n, String indent) {
+        if (n instanceof Dish d) return indent + "- " + d.name() + " … " + d.priceRub() + "₽";
+        var s = (Section) n;
+        var sb = new StringBuilder(indent).append("+ ").append(s.name()).append("\n");
+        for (MenuNode c : s.children()) sb.append(oldRender(c, indent + "  ")).append("\n");
+        return sb.toString().stripTrailing();
+    }
+}
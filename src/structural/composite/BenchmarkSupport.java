@@ -0,0 +1,36 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.util.Random;
+
+// Общее для замеров меню: дерево-образец и прогон с отчётом.
+// Упрощённый прогон без JMH: время — nanoTime.
+final class BenchmarkSupport {
+    private BenchmarkSupport() {}
+
+    interface Work { long run() throws IOException; }
+
+    // groups кухонь по sections разделов по dishes блюд; цены — с постоянным зерном
+    static Section menu(int groups, int sections, int dishes) {
+        var rnd = new Random(42);
+        var menu = new Section("Меню");
+        for (int g = 0; g < groups; g++) {
+            var group = new Section("Кухня " + g);
+            for (int s = 0; s < sections; s++) {
+                var section = new Section("Раздел " + g + "." + s);
+                for (int d = 0; d < dishes; d++) section.add(new Dish("Блюдо " + d, 50 + rnd.nextInt(2000)));
+                group.add(section);
+            }
+            menu.add(group);
+        }
+        return menu;
+    }
+
+    // ops прогонов подряд; check не даёт JIT выбросить работу
+    static void report(int round, String name, int ops, Work work) throws IOException {
+        long check = 0, t0 = System.nanoTime();
+        for (int i = 0; i < ops; i++) check += work.run();
+        long ns = System.nanoTime() - t0;
+        System.out.printf("round %d %-18s %,16.1f ns/op (check %d)%n", round, name, (double) ns / ops, check);
+    }
+}
@@ -1,50 +1,198 @@
 package structural.composite;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 // Component — общий контракт, наследуется блюдом и разделом
 sealed interface MenuNode permits Dish, Section {
-    String render(String indent); // печать дерева
-    int countDishes();            // агрегирующая операция
+    // потоковая печать дерева в общий out: строки через "\n", отступ — indent плюс два пробела на уровень
+    void render(Appendable out, String indent, int depth) throws IOException;
+
+    // печать дерева в строку
+    default String render(String indent) {
+        var sb = new StringBuilder();
+        try {
+            render(sb, indent, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder не бросает
+        }
+        return sb.toString();
+    }
+
+    // агрегирующие операции; у пустого раздела min/max — нейтральные MAX_VALUE/MIN_VALUE
+    int countDishes();
+    long totalPrice();
+    int minPrice();
+    int maxPrice();
 }
 
 // Leaf — лист — блюдо
 record Dish(String name, int priceRub) implements MenuNode {
     @Override
-    public String render(String indent) {
-        return indent + "- " + name + " … " + priceRub + "₽";
+    public void render(Appendable out, String indent, int depth) throws IOException {
+        Section.indent(out.append(indent), depth).append("- ").append(name).append(" … ")
+                .append(Integer.toString(priceRub)).append("₽");
     }
     @Override
     public int countDishes() {
         return 1;
     }
+    @Override public long totalPrice() { return priceRub; }
+    @Override public int minPrice()    { return priceRub; }
+    @Override public int maxPrice()    { return priceRub; }
 }
 
-// Composite — раздел меню, содержит другие узлы
+// Composite — раздел меню, содержит другие узлы.
+// Агрегаты поддерева хранятся в разделе: добавление обновляет их на пути до корня,
+// удаление — тоже, кроме случая, когда уходит текущий min или max, — тогда путь помечается
+// грязным и пересчитывается при следующем запросе. Грязный раздел — грязны и все его предки.
 final class Section implements MenuNode {
+    private static String spaces = " ".repeat(128); // общий запас отступов, режется по уровню
+
     private final String name;
     private final List<MenuNode> children = new ArrayList<>();
+    private Section parent;
+    private boolean dirty;
+    private int count;
+    private long sum;
+    private int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
     Section(String name) {
         this.name = name;
     }
 
-    Section add(MenuNode... nodes) { children.addAll(List.of(nodes)); return this; }
+    Section add(MenuNode... nodes) {
+        for (MenuNode n : nodes) {
+            if (n instanceof Section s) attach(s);
+            children.add(n);
+            if (dirty) continue; // путь вверх уже грязный
+            switch (n) {
+                case Dish d -> added(1, d.priceRub(), d.priceRub(), d.priceRub());
+                case Section s -> {
+                    if (s.dirty) invalidate();
+                    else added(s.count, s.sum, s.min, s.max);
+                }
+            }
+        }
+        return this;
+    }
 
-    @Override public String render(String indent) {
-        var sb = new StringBuilder(indent).append("+ ").append(name).append("\n");
-        for (MenuNode n : children) sb.append(n.render(indent + "  ")).append("\n");
-        return sb.toString().stripTrailing();
+    // удаляет узел (блюдо — первое равное, раздел — именно этот); false — такого нет
+    boolean remove(MenuNode node) {
+        int i = node instanceof Section ? indexOfSection(node) : children.indexOf(node);
+        if (i < 0) return false;
+        children.remove(i);
+        if (!dirty) { // чистый раздел — значит, и узел чист, его агрегаты актуальны
+            switch (node) {
+                case Dish d -> removed(1, d.priceRub(), d.priceRub(), d.priceRub());
+                case Section s -> removed(s.count, s.sum, s.min, s.max);
+            }
+        }
+        if (node instanceof Section s) s.parent = null;
+        return true;
     }
 
-    @Override public int countDishes() {
-        return children.stream().mapToInt(MenuNode::countDishes).sum();
+    String name() { return name; }
+    List<MenuNode> children() { return Collections.unmodifiableList(children); }
+    Section parent() { return parent; }
+
+    @Override public void render(Appendable out, String indent, int depth) throws IOException {
+        indent(out.append(indent), depth).append("+ ").append(name);
+        for (MenuNode n : children) {
+            n.render(out.append('\n'), indent, depth + 1);
+        }
+    }
+
+    @Override public int countDishes() { ensure(); return count; }
+    @Override public long totalPrice() { ensure(); return sum; }
+    @Override public int minPrice()    { ensure(); return min; }
+    @Override public int maxPrice()    { ensure(); return max; }
+
+    // два пробела на уровень — срез общей строки, без склейки отступов на каждом уровне
+    static Appendable indent(Appendable out, int depth) throws IOException {
+        int n = 2 * depth;
+        if (n > spaces.length()) spaces = " ".repeat(Math.max(n, 2 * spaces.length()));
+        return out.append(spaces, 0, n);
+    }
+
+    private void attach(Section s) {
+        if (s.parent != null) throw new IllegalStateException("section already added: " + s.name);
+        if (s == this) throw new IllegalArgumentException("cycle: " + name + " added to itself");
+        // раздел без детей может замкнуть цикл только сам на себя — предков тогда не обходим
+        for (Section p = s.children.isEmpty() ? null : this; p != null; p = p.parent) {
+            if (p == s) throw new IllegalArgumentException("cycle: " + s.name + " contains " + name);
+        }
+        s.parent = this;
+    }
+
+    private int indexOfSection(MenuNode node) {
+        for (int i = 0; i < children.size(); i++) if (children.get(i) == node) return i;
+        return -1;
+    }
+
+    private void added(int c, long s, int lo, int hi) {
+        if (c == 0) return; // пустой раздел ничего не меняет: глубокая цепочка строится за O(1) на узел
+        for (Section p = this; p != null && !p.dirty; p = p.parent) {
+            p.count += c;
+            p.sum += s;
+            p.min = Math.min(p.min, lo);
+            p.max = Math.max(p.max, hi);
+        }
+    }
+
+    private void removed(int c, long s, int lo, int hi) {
+        if (c == 0) return;
+        for (Section p = this; p != null && !p.dirty; p = p.parent) {
+            p.count -= c;
+            p.sum -= s;
+            if (p.count == 0) {
+                p.min = Integer.MAX_VALUE;
+                p.max = Integer.MIN_VALUE;
+            } else if (lo <= p.min || hi >= p.max) { // ушёл крайний — без пересчёта не узнать новый
+                p.invalidate();
+                return;
+            }
+        }
+    }
+
+    private void invalidate() {
+        for (Section p = this; p != null && !p.dirty; p = p.parent) p.dirty = true;
+    }
+
+    // пересчёт только грязных поддеревьев: чистые разделы отдают готовые агрегаты
+    private void ensure() {
+        if (!dirty) return;
+        int c = 0, lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+        long s = 0;
+        for (MenuNode n : children) {
+            switch (n) {
+                case Dish d -> {
+                    c++;
+                    s += d.priceRub();
+                    lo = Math.min(lo, d.priceRub());
+                    hi = Math.max(hi, d.priceRub());
+                }
+                case Section sec -> {
+                    sec.ensure();
+                    c += sec.count;
+                    s += sec.sum;
+                    lo = Math.min(lo, sec.min);
+                    hi = Math.max(hi, sec.max);
+                }
+            }
+        }
+        count = c; sum = s; min = lo; max = hi;
+        dirty = false;
     }
 }
 
 // Демонстрация: работаем с деревом как с одним объектом
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         var pizza   = new Dish("Пицца Маргарита", 550);
         var pasta   = new Dish("Паста Карбонара", 490);
         var kvass   = new Dish("Квас", 120);
@@ -56,5 +204,19 @@ public class Main {
 
         System.out.println(menu.render(""));
         System.out.println("Всего блюд: " + menu.countDishes());
+
+        // Агрегаты берутся из кеша; удаление самого дешёвого блюда пересчитывает только путь Напитки -> Меню
+        System.out.println("Сумма: " + menu.totalPrice() + "₽, от " + menu.minPrice() + " до " + menu.maxPrice()); // 1250, 90..550
+        drinks.remove(tea);
+        System.out.println("Без чая: " + menu.countDishes() + " блюда, от " + menu.minPrice() + "₽"); // 3, 120
+
+        // Потоковый рендер: строки сразу пишутся в out, общая строка дерева не собирается
+        menu.render(System.out, "", 0);
+        System.out.println();
+
+        // То же меню в массивах: агрегаты — проходом по отрезку поддерева, печать — циклом без рекурсии
+        var arena = MenuArena.from(menu);
+        System.out.println("Арена: " + arena.size() + " узлов, " + arena.totals(ForkJoinPool.commonPool())); // 6 узлов, 3 блюда
+        System.out.println("Обратно: " + arena.toNode().render("").equals(menu.render(""))); // true
     }
 }
@@ -0,0 +1,204 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Итоги поддерева; у поддерева без блюд min/max — нейтральные MAX_VALUE/MIN_VALUE, как у Section
+record MenuTotals(int dishes, long totalRub, int minRub, int maxRub) {
+    static final MenuTotals EMPTY = new MenuTotals(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    MenuTotals plus(MenuTotals o) {
+        return new MenuTotals(dishes + o.dishes, totalRub + o.totalRub, Math.min(minRub, o.minRub), Math.max(maxRub, o.maxRub));
+    }
+}
+
+// Меню только для чтения, уложенное в массивы: узел — индекс, связи — parent/firstChild/nextSibling,
+// имена и цены — отдельными столбцами. Узлы лежат в прямом порядке обхода, поэтому поддерево узла i —
+// непрерывный отрезок [i, end(i)): агрегаты считаются линейным проходом по массивам, обход и печать —
+// циклом без рекурсии (глубина дерева стек не расходует), а параллельный подсчёт делит работу
+// по границам поддеревьев. В Dish/Section и обратно — from()/toNode().
+final class MenuArena {
+    static final int NIL = -1;
+    private static final int CHUNK = 16_384; // меньше — считаем подряд, fork-join дороже самой работы
+
+    private final int[] parent, firstChild, nextSibling, end, depth;
+    private final String[] names;
+    private final int[] prices;
+    private final boolean[] dish;
+
+    private MenuArena(int n) {
+        parent = new int[n];
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        end = new int[n];
+        depth = new int[n];
+        names = new String[n];
+        prices = new int[n];
+        dish = new boolean[n];
+        Arrays.fill(firstChild, NIL);
+        Arrays.fill(nextSibling, NIL);
+    }
+
+    // раскладка дерева в массивы; обход — явным стеком, так что глубина дерева не ограничена стеком потока
+    static MenuArena from(MenuNode root) {
+        var order = new ArrayList<MenuNode>();
+        var stack = new ArrayList<MenuNode>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            var n = stack.remove(stack.size() - 1);
+            order.add(n);
+            if (n instanceof Section s) {
+                var children = s.children();
+                for (int i = children.size() - 1; i >= 0; i--) stack.add(children.get(i));
+            }
+        }
+
+        var a = new MenuArena(order.size());
+        var open = new int[16]; // открытые разделы на пути от корня: индексы узлов
+        var last = new int[16]; // последний добавленный ребёнок каждого открытого раздела
+        var left = new int[16]; // сколько детей раздела ещё не разложено
+        int top = -1;
+        for (int i = 0; i < order.size(); i++) {
+            while (top >= 0 && left[top] == 0) { // все дети на месте — раздел закрыт
+                a.end[open[top]] = i;
+                top--;
+            }
+            if (top >= 0) {
+                int p = open[top];
+                a.parent[i] = p;
+                a.depth[i] = top + 1;
+                if (last[top] == NIL) a.firstChild[p] = i;
+                else a.nextSibling[last[top]] = i;
+                last[top] = i;
+                left[top]--;
+            } else {
+                a.parent[i] = NIL;
+            }
+            switch (order.get(i)) {
+                case Dish d -> {
+                    a.names[i] = d.name();
+                    a.prices[i] = d.priceRub();
+                    a.dish[i] = true;
+                    a.end[i] = i + 1;
+                }
+                case Section s -> {
+                    a.names[i] = s.name();
+                    if (++top == open.length) {
+                        open = Arrays.copyOf(open, 2 * top);
+                        last = Arrays.copyOf(last, 2 * top);
+                        left = Arrays.copyOf(left, 2 * top);
+                    }
+                    open[top] = i;
+                    last[top] = NIL;
+                    left[top] = s.children().size();
+                }
+            }
+        }
+        for (; top >= 0; top--) a.end[open[top]] = order.size();
+        return a;
+    }
+
+    int size() { return names.length; }
+    int parent(int i)      { return parent[i]; }
+    int firstChild(int i)  { return firstChild[i]; }
+    int nextSibling(int i) { return nextSibling[i]; }
+    int end(int i)         { return end[i]; } // поддерево i — узлы [i, end(i))
+    int depth(int i)       { return depth[i]; }
+    String name(int i)     { return names[i]; }
+    boolean isDish(int i)  { return dish[i]; }
+    int price(int i)       { return prices[i]; }
+
+    // обратно в объекты: разделы собираются с конца, когда их дети уже готовы — без рекурсии
+    MenuNode toNode() {
+        var nodes = new MenuNode[size()];
+        for (int i = size() - 1; i >= 0; i--) {
+            if (dish[i]) {
+                nodes[i] = new Dish(names[i], prices[i]);
+                continue;
+            }
+            var s = new Section(names[i]);
+            for (int c = firstChild[i]; c != NIL; c = nextSibling[c]) s.add(nodes[c]);
+            nodes[i] = s;
+        }
+        return nodes[0];
+    }
+
+    // тот же текст, что у MenuNode.render, но одним циклом по массивам
+    void render(Appendable out, String indent) throws IOException {
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) out.append('\n');
+            Section.indent(out.append(indent), depth[i]);
+            if (dish[i]) out.append("- ").append(names[i]).append(" … ").append(Integer.toString(prices[i])).append("₽");
+            else out.append("+ ").append(names[i]);
+        }
+    }
+
+    MenuTotals totals(int node) { return scan(node, end[node]); }
+
+    // параллельный подсчёт: крупные поддеревья — отдельными задачами, мелкие соседние — одним отрезком
+    MenuTotals totals(int node, ForkJoinPool pool) {
+        return end[node] - node <= CHUNK ? scan(node, end[node]) : pool.invoke(new Subtree(node));
+    }
+
+    MenuTotals totals(ForkJoinPool pool) { return totals(0, pool); }
+
+    private MenuTotals scan(int from, int to) {
+        int count = 0, min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            if (!dish[i]) continue;
+            int p = prices[i];
+            count++;
+            sum += p;
+            min = Math.min(min, p);
+            max = Math.max(max, p);
+        }
+        return count == 0 ? MenuTotals.EMPTY : new MenuTotals(count, sum, min, max);
+    }
+
+    @SuppressWarnings("serial") // задача живёт только внутри пула, не сериализуется
+    private final class Subtree extends RecursiveTask<MenuTotals> {
+        private final int node;
+
+        Subtree(int node) { this.node = node; }
+
+        // последнее крупное поддерево считается в этой же задаче — циклом, а не вложенной задачей,
+        // поэтому длинная цепочка разделов не растит стек join-ов
+        @Override protected MenuTotals compute() {
+            var forked = new ArrayList<ForkJoinTask<MenuTotals>>();
+            var result = MenuTotals.EMPTY;
+            for (int n = node; n != NIL; ) {
+                int from = NIL, big = NIL; // начало группы мелких соседей; крупный ребёнок, отложенный для себя
+                for (int c = firstChild[n]; c != NIL; c = nextSibling[c]) {
+                    if (end[c] - c > CHUNK) {
+                        if (from != NIL) { forked.add(new Range(from, c).fork()); from = NIL; }
+                        if (big != NIL) forked.add(new Subtree(big).fork());
+                        big = c;
+                    } else if (from == NIL) {
+                        from = c;
+                    } else if (end[c] - from > CHUNK) {
+                        forked.add(new Range(from, c).fork());
+                        from = c;
+                    }
+                }
+                if (from != NIL) result = result.plus(scan(from, end[n])); // хвост мелких соседей — здесь же
+                n = big;
+            }
+            for (int i = forked.size() - 1; i >= 0; i--) result = result.plus(forked.get(i).join());
+            return result;
+        }
+    }
+
+    @SuppressWarnings("serial") // задача живёт только внутри пула, не сериализуется
+    private final class Range extends RecursiveTask<MenuTotals> {
+        private final int from, to;
+
+        Range(int from, int to) { this.from = from; this.to = to; }
+
+        @Override protected MenuTotals compute() { return scan(from, to); }
+    }
+}
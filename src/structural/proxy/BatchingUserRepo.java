@@ -0,0 +1,103 @@
+package structural.proxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Proxy-загрузчик в стиле DataLoader: одиночные findAsync, пришедшие в окне времени
+// или до заполнения пакета, уходят к реальному репозиторию одним findAll на executor.
+// После close() новые запросы сразу завершаются ошибкой, накопленные — досылаются.
+final class BatchingUserRepo implements UserRepo, AutoCloseable {
+    private record Pending(String id, CompletableFuture<User> future) {}
+
+    private final UserRepo inner;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Executor executor;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "user-batch-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    private List<Pending> queue = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    BatchingUserRepo(UserRepo inner, Duration window, int maxBatch, Executor executor) {
+        this.inner = inner;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.executor = executor;
+    }
+
+    @Override public CompletableFuture<User> findAsync(String id) {
+        var future = new CompletableFuture<User>();
+        List<Pending> ready = null;
+        synchronized (lock) {
+            if (closed) return CompletableFuture.failedFuture(new IllegalStateException("batching repo is closed"));
+            queue.add(new Pending(id, future));
+            if (queue.size() >= maxBatch) ready = drain();            // пакет заполнен
+            else if (queue.size() == 1)                                 // первый в окне — заводим таймер
+                scheduledFlush = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+        }
+        if (ready != null) dispatch(ready);
+        return future;
+    }
+
+    // пакет всё равно уходит на исполнителе прокси; executor получает продолжение
+    @Override public CompletableFuture<User> findAsync(String id, Executor executor) {
+        return findAsync(id).thenApplyAsync(u -> u, executor);
+    }
+
+    @Override public User find(String id) { return findAsync(id).join(); }
+
+    @Override public Map<String, User> findAll(Collection<String> ids) { return inner.findAll(ids); }
+
+    void flush() {
+        List<Pending> ready;
+        synchronized (lock) { ready = drain(); }
+        if (!ready.isEmpty()) dispatch(ready);
+    }
+
+    @Override public void close() {
+        synchronized (lock) { closed = true; } // после этого таймер больше не заводится
+        flush();
+        timer.shutdown();
+    }
+
+    private List<Pending> drain() {
+        if (scheduledFlush != null) { scheduledFlush.cancel(false); scheduledFlush = null; }
+        var ready = queue;
+        queue = new ArrayList<>();
+        return ready;
+    }
+
+    private void dispatch(List<Pending> batch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    var ids = new LinkedHashSet<String>();
+                    for (var p : batch) ids.add(p.id());
+                    Map<String, User> found = inner.findAll(ids);
+                    for (var p : batch) p.future().complete(found.get(p.id()));
+                } catch (RuntimeException e) {
+                    for (var p : batch) p.future().completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) { // исполнитель уже остановлен — ждать пакету нечего
+            for (var p : batch) p.future().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package structural.proxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+// Замер: сколько id в секунду разрешаем одиночными find против склеенных findAsync.
+// Упрощённый прогон на System.nanoTime (без JMH), БД с задержкой 20 мс на запрос.
+// id все разные: пакет уходит целиком, а не схлопывается дедупликацией до пары ключей.
+public class Benchmark {
+    public static void main(String[] args) {
+        int singles = 20, batched = 1_000;
+
+        var db = new DbUserRepo(20, false); // без печати запросов внутри замера
+        long t0 = System.nanoTime();
+        for (int i = 0; i < singles; i++) db.find("u" + i);
+        report("single find", singles, System.nanoTime() - t0);
+
+        var io = Executors.newFixedThreadPool(8);
+        try (var repo = new BatchingUserRepo(new DbUserRepo(20, false), Duration.ofMillis(2), 256, io)) {
+            var futures = new ArrayList<CompletableFuture<User>>(batched);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < batched; i++) futures.add(repo.findAsync("u" + i));
+            futures.forEach(CompletableFuture::join);
+            report("batched findAsync", batched, System.nanoTime() - t1);
+        } finally {
+            io.shutdown();
+        }
+    }
+
+    private static void report(String name, int ids, long nanos) {
+        System.out.printf("%-18s %6d ids за %6.1f мс -> %,.0f ids/s%n",
+                name, ids, nanos / 1e6, ids / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,353 @@
+package structural.proxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Движок кеша за прокси: Segmented LRU, лимиты размера/веса, TTL, refresh-ahead.
+// Одновременные промахи по одному ключу схлопываются в один future,
+// загрузка идёт вне блокировок карты — медленный ключ не тормозит соседей.
+final class BoundedCache<K, V> {
+
+    // Запись кеша: значение + метки времени (System.nanoTime)
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long weight;
+        final long writtenAt;
+        volatile long accessedAt;
+        boolean hot; // находится в защищённом сегменте (меняется под policyLock)
+
+        Node(K key, V value, long weight, long now) {
+            this.key = key; this.value = value; this.weight = weight;
+            this.writtenAt = now; this.accessedAt = now;
+        }
+    }
+
+    // Снимок счётчиков
+    record Stats(long hits, long misses, long evictions, long loads, long loadFailures, long totalLoadNanos) {
+        double hitRate() { long req = hits + misses; return req == 0 ? 1.0 : (double) hits / req; }
+        double avgLoadMillis() { return loads == 0 ? 0 : totalLoadNanos / 1e6 / loads; }
+    }
+
+    private final Function<K, V> loader;
+    private final long maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // SLRU: новые записи попадают в probation, повторное обращение переводит в protected
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+    private final long protectedCap;
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    private BoundedCache(Builder<K, V> b, Function<K, V> loader) {
+        this.loader = Objects.requireNonNull(loader, "loader is required");
+        this.maxSize = b.maxSize;
+        this.maxWeight = b.maxWeight;
+        this.weigher = b.weigher;
+        this.expireAfterWriteNanos = b.expireAfterWrite.toNanos();
+        this.expireAfterAccessNanos = b.expireAfterAccess.toNanos();
+        this.refreshAfterWriteNanos = b.refreshAfterWrite.toNanos();
+        this.refreshExecutor = b.refreshExecutor;
+        // 80% — «горячие» записи; без лимита размера maxSize = Long.MAX_VALUE, и maxSize * 4 переполнился бы
+        this.protectedCap = Math.max(1, maxSize > Long.MAX_VALUE / 4 ? maxSize / 5 * 4 : maxSize * 4 / 5);
+    }
+
+    static <K, V> Builder<K, V> builder() { return new Builder<>(); }
+
+    V get(K key) {
+        long now = System.nanoTime();
+        Node<K, V> n = data.get(key);
+        if (n != null) {
+            if (isExpired(n, now)) {
+                discard(n);
+            } else {
+                hits.increment();
+                n.accessedAt = now;
+                onAccess(n);
+                if (refreshAfterWriteNanos > 0 && now - n.writtenAt >= refreshAfterWriteNanos) refreshAsync(key);
+                return n.value;
+            }
+        }
+        misses.increment();
+        return join(loadOnce(key));
+    }
+
+    // Подкладывает готовое значение (например, из пакетной загрузки)
+    void put(K key, V value) { insert(key, value, System.nanoTime()); }
+
+    // То же, но с исходным моментом записи (epoch millis), например из снимка: TTL считается от него.
+    // false — значение уже просрочено и не положено
+    boolean put(K key, V value, long writtenAtMillis) {
+        long now = System.nanoTime();
+        long ageNanos = Math.max(0, System.currentTimeMillis() - writtenAtMillis) * 1_000_000;
+        if (expireAfterWriteNanos > 0 && ageNanos >= expireAfterWriteNanos) return false;
+        insert(key, value, now - ageNanos);
+        return true;
+    }
+
+    private void insert(K key, V value, long writtenAtNanos) {
+        var node = new Node<>(key, value, weigher.applyAsLong(value), writtenAtNanos);
+        policyLock.lock();
+        try {
+            // замена в data и в сегментах — под одним замком: иначе две записи одного ключа
+            // могут оставить в probation старый узел, а в data — новый, и вес перестанет сходиться
+            Node<K, V> old = data.put(key, node);
+            if (old != null) unlink(old);
+            probation.put(key, node);
+            totalWeight += node.weight;
+            evictIfNeeded();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    V getIfPresent(K key) {
+        long now = System.nanoTime();
+        Node<K, V> n = data.get(key);
+        if (n == null || isExpired(n, now)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        n.accessedAt = now;
+        onAccess(n);
+        return n.value;
+    }
+
+    // Пакетное чтение: попадания отдаём из кеша, все промахи — одним вызовом bulkLoader
+    Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            V v = getIfPresent(key);
+            if (v != null) result.put(key, v);
+            else missing.add(key);
+        }
+        if (missing.isEmpty()) return result;
+
+        long start = System.nanoTime();
+        Map<K, V> loaded;
+        try {
+            loaded = bulkLoader.apply(new ArrayList<>(missing));
+            loads.increment();
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+        }
+        loaded.forEach(this::putLoaded);
+
+        Map<K, V> ordered = new LinkedHashMap<>(); // сохраняем порядок запрошенных ключей
+        for (K key : keys) {
+            V v = result.containsKey(key) ? result.get(key) : loaded.get(key);
+            if (v != null) ordered.put(key, v);
+        }
+        return ordered;
+    }
+
+    void invalidate(K key) {
+        Node<K, V> n = data.get(key);
+        if (n != null) discard(n);
+    }
+
+    long size() { return data.size(); }
+
+    // Обход живых записей (для снимков): ключ, значение и момент записи в epoch millis
+    @FunctionalInterface
+    interface EntryVisitor<K, V> { void visit(K key, V value, long writtenAtMillis); }
+
+    void forEach(EntryVisitor<K, V> visitor) {
+        long nowNanos = System.nanoTime(), nowMillis = System.currentTimeMillis();
+        for (Node<K, V> n : data.values()) {
+            if (isExpired(n, nowNanos)) continue;
+            visitor.visit(n.key, n.value, nowMillis - (nowNanos - n.writtenAt) / 1_000_000);
+        }
+    }
+
+    Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(),
+                loads.sum(), loadFailures.sum(), loadNanos.sum());
+    }
+
+    // --- загрузка ---
+
+    private CompletableFuture<V> loadOnce(K key) {
+        var fresh = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(key, fresh);
+        if (existing != null) return existing; // кто-то уже грузит — ждём его результат
+        try {
+            Node<K, V> n = data.get(key); // пока мы шли сюда, лидер мог успеть
+            if (n != null && !isExpired(n, System.nanoTime())) fresh.complete(n.value);
+            else {
+                V v = load(key);
+                putLoaded(key, v);
+                fresh.complete(v);
+            }
+        } catch (RuntimeException e) {
+            fresh.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, fresh);
+        }
+        return fresh;
+    }
+
+    // Refresh-ahead: читатели продолжают получать старое значение, пока грузится новое
+    private void refreshAsync(K key) {
+        var fresh = new CompletableFuture<V>();
+        if (inFlight.putIfAbsent(key, fresh) != null) return;
+        refreshExecutor.execute(() -> {
+            try {
+                V v = load(key);
+                putLoaded(key, v);
+                fresh.complete(v);
+            } catch (RuntimeException e) {
+                fresh.completeExceptionally(e); // старое значение остаётся до истечения TTL
+            } finally {
+                inFlight.remove(key, fresh);
+            }
+        });
+    }
+
+    // загрузчик мог сам положить значение со своей меткой времени — тогда не перезаписываем
+    private void putLoaded(K key, V v) {
+        if (v == null) return;
+        Node<K, V> n = data.get(key);
+        if (n == null || n.value != v) put(key, v);
+    }
+
+    private V load(K key) {
+        long start = System.nanoTime();
+        try {
+            V v = loader.apply(key);
+            loads.increment();
+            return v;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    // --- политика вытеснения ---
+
+    private boolean isExpired(Node<K, V> n, long now) {
+        return (expireAfterWriteNanos > 0 && now - n.writtenAt >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - n.accessedAt >= expireAfterAccessNanos);
+    }
+
+    private void onAccess(Node<K, V> n) {
+        // порядок LRU — не критичен: если политика занята, просто пропускаем перестановку
+        if (!policyLock.tryLock()) return;
+        try {
+            if (n.hot) {
+                if (protectedSegment.remove(n.key, n)) protectedSegment.put(n.key, n);
+            } else if (probation.remove(n.key, n)) {
+                n.hot = true;
+                protectedSegment.put(n.key, n);
+                while (protectedSegment.size() > protectedCap) {
+                    Node<K, V> demoted = removeEldest(protectedSegment);
+                    demoted.hot = false;
+                    probation.put(demoted.key, demoted);
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void discard(Node<K, V> n) {
+        if (!data.remove(n.key, n)) return;
+        policyLock.lock();
+        try {
+            unlink(n);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void unlink(Node<K, V> n) {
+        var segment = n.hot ? protectedSegment : probation;
+        if (segment.remove(n.key, n)) totalWeight -= n.weight;
+    }
+
+    private void evictIfNeeded() {
+        while (probation.size() + protectedSegment.size() > maxSize || totalWeight > maxWeight) {
+            var victim = !probation.isEmpty() ? removeEldest(probation) : removeEldest(protectedSegment);
+            if (victim == null) return;
+            totalWeight -= victim.weight;
+            data.remove(victim.key, victim);
+            evictions.increment();
+        }
+    }
+
+    private static <K, V> Node<K, V> removeEldest(LinkedHashMap<K, Node<K, V>> segment) {
+        Iterator<Node<K, V>> it = segment.values().iterator();
+        if (!it.hasNext()) return null;
+        Node<K, V> eldest = it.next();
+        it.remove();
+        return eldest;
+    }
+
+    static final class Builder<K, V> {
+        private long maxSize = Long.MAX_VALUE;
+        private long maxWeight = Long.MAX_VALUE;
+        private ToLongFunction<V> weigher = v -> 1;
+        private Duration expireAfterWrite = Duration.ZERO;   // 0 — без TTL
+        private Duration expireAfterAccess = Duration.ZERO;
+        private Duration refreshAfterWrite = Duration.ZERO;
+        private Executor refreshExecutor = ForkJoinPool.commonPool();
+
+        Builder<K, V> maximumSize(long v)                  { this.maxSize = v; return this; }
+        Builder<K, V> maximumWeight(long v, ToLongFunction<V> w) { this.maxWeight = v; this.weigher = w; return this; }
+        Builder<K, V> expireAfterWrite(Duration v)         { this.expireAfterWrite = v; return this; }
+        Builder<K, V> expireAfterAccess(Duration v)        { this.expireAfterAccess = v; return this; }
+        Builder<K, V> refreshAfterWrite(Duration v)        { this.refreshAfterWrite = v; return this; }
+        Builder<K, V> refreshExecutor(Executor v)          { this.refreshExecutor = v; return this; }
+
+        BoundedCache<K, V> build(Function<K, V> loader) { return new BoundedCache<>(this, loader); }
+    }
+}
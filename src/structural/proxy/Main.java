@@ -1,10 +1,50 @@
 package structural.proxy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 // Subject (контракт)
-interface UserRepo { User find(String id); }
+interface UserRepo {
+    User find(String id);
+
+    // Пакетный поиск: по умолчанию — цикл по find, реализации могут сходить одним запросом
+    default Map<String, User> findAll(Collection<String> ids) {
+        Map<String, User> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            User u = find(id);
+            if (u != null) found.put(id, u);
+        }
+        return found;
+    }
+
+    // Асинхронный поиск: по умолчанию — find прямо в вызывающем потоке; BatchingUserRepo склеивает
+    // такие вызовы в один findAll, не занимая вызывающего
+    default CompletableFuture<User> findAsync(String id) {
+        try {
+            return CompletableFuture.completedFuture(find(id));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // find блокирует на время запроса, поэтому исполнитель задаёт вызывающий, а не общий ForkJoinPool
+    default CompletableFuture<User> findAsync(String id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> find(id), executor);
+    }
+}
 
 // Реальная реализация (дорогая/медленная, имитируем БД)
 final class DbUserRepo implements UserRepo {
@@ -12,31 +52,129 @@ final class DbUserRepo implements UserRepo {
             "u1", new User("u1", "Alice"),
             "u2", new User("u2", "Bob")
     );
+    private final long latencyMillis;
+    private final boolean verbose;
+
+    DbUserRepo() { this(200); }
+    DbUserRepo(long latencyMillis) { this(latencyMillis, true); }
+
+    // verbose = false — без печати каждого запроса (для замеров)
+    DbUserRepo(long latencyMillis, boolean verbose) {
+        this.latencyMillis = latencyMillis;
+        this.verbose = verbose;
+    }
 
     @Override public User find(String id) {
         simulateLatency();
-        System.out.println("[db] query " + id);
+        if (verbose) System.out.println("[db] query " + id);
         return db.get(id);
     }
 
+    // один round trip на весь пакет (WHERE id IN (...))
+    @Override public Map<String, User> findAll(Collection<String> ids) {
+        simulateLatency();
+        if (verbose) System.out.println("[db] batch query " + ids.size() + " ids");
+        Map<String, User> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            User u = db.get(id);
+            if (u != null) found.put(id, u);
+        }
+        return found;
+    }
+
     private void simulateLatency() {
-        try { Thread.sleep(200); } catch (InterruptedException ignored) {}
+        try { Thread.sleep(latencyMillis); } catch (InterruptedException ignored) {}
     }
 }
 
 // Proxy: тот же контракт, но с кешем перед делегированием
 final class CachedUserRepo implements UserRepo {
+    private static final ScheduledExecutorService SNAPSHOTS = Executors.newSingleThreadScheduledExecutor(r -> {
+        var t = new Thread(r, "user-cache-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final UserRepo inner;
-    private final Map<String, User> cache = new ConcurrentHashMap<>();
+    private final UserSnapshot warm;
+    private final BoundedCache<String, User> cache;
 
-    CachedUserRepo(UserRepo inner) { this.inner = inner; }
+    CachedUserRepo(UserRepo inner) {
+        this(inner, BoundedCache.<String, User>builder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(10)));
+    }
 
-    @Override public User find(String id) {
-        return cache.computeIfAbsent(id, key -> {
+    CachedUserRepo(UserRepo inner, BoundedCache.Builder<String, User> config) { this(inner, config, null); }
+
+    // warm — снимок прошлого запуска: промах сначала ищем в нём и только потом идём в “реал”
+    CachedUserRepo(UserRepo inner, BoundedCache.Builder<String, User> config, UserSnapshot warm) {
+        this.inner = inner;
+        this.warm = warm;
+        this.cache = config.build(key -> {
+            User snapped = fromSnapshot(key);
+            if (snapped != null) return snapped;
             System.out.println("[cache] miss " + key);
             return inner.find(key); // дорого - ходим в “реал” только один раз
         });
     }
+
+    @Override public User find(String id) { return cache.get(id); }
+
+    // Пакет делится на попадания и один пакетный запрос за промахами
+    @Override public Map<String, User> findAll(Collection<String> ids) {
+        return cache.getAll(ids, missing -> {
+            Map<String, User> found = new LinkedHashMap<>();
+            List<String> rest = new ArrayList<>();
+            for (String id : missing) {
+                User snapped = fromSnapshot(id); // уже в кеше со своей меткой — getAll её не перезапишет
+                if (snapped != null) found.put(id, snapped); else rest.add(id);
+            }
+            if (!rest.isEmpty()) {
+                System.out.println("[cache] batch miss " + rest);
+                found.putAll(inner.findAll(rest));
+            }
+            return found;
+        });
+    }
+
+    @Override public CompletableFuture<User> findAsync(String id) {
+        User hit = cache.getIfPresent(id);
+        return hit != null ? CompletableFuture.completedFuture(hit) : UserRepo.super.findAsync(id);
+    }
+
+    @Override public CompletableFuture<User> findAsync(String id, Executor executor) {
+        User hit = cache.getIfPresent(id);
+        return hit != null ? CompletableFuture.completedFuture(hit) : UserRepo.super.findAsync(id, executor);
+    }
+
+    BoundedCache.Stats stats() { return cache.stats(); }
+
+    // Компактный снимок текущих записей (с моментом записи каждой)
+    void snapshotTo(Path file) throws IOException {
+        var entries = new ArrayList<UserSnapshot.Entry>();
+        cache.forEach((id, user, writtenAt) -> entries.add(new UserSnapshot.Entry(user, writtenAt)));
+        UserSnapshot.write(file, entries);
+    }
+
+    // Периодические снимки в фоне; ошибка записи не роняет прокси — пробуем в следующий раз
+    ScheduledFuture<?> snapshotEvery(Path file, Duration period) {
+        return SNAPSHOTS.scheduleAtFixedRate(() -> {
+            try {
+                snapshotTo(file);
+            } catch (IOException e) {
+                System.out.println("[snapshot] write failed: " + e.getMessage());
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // запись из снимка кладётся с исходным моментом записи: TTL не начинается заново после рестарта
+    private User fromSnapshot(String id) {
+        var e = warm == null ? null : warm.findEntry(id);
+        if (e == null || !cache.put(id, e.user(), e.writtenAtMillis())) return null; // по TTL кеша уже просрочена
+        System.out.println("[snapshot] hit " + id);
+        return e.user();
+    }
 }
 
 // Простая модель (Java 17 record)
@@ -44,12 +182,49 @@ record User(String id, String name) {}
 
 // Демонстрация
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         UserRepo repo = new CachedUserRepo(new DbUserRepo());
 
         System.out.println(repo.find("u1")); // промах - [db]
         System.out.println(repo.find("u1")); // попадание - из кеша, без [db]
         System.out.println(repo.find("u2")); // промах - [db]
         System.out.println(repo.find("u2")); // попадание - из кеша
+
+        // Ограниченный кеш: 1 запись, повторные промахи по одному ключу схлопываются в одну загрузку
+        var small = new CachedUserRepo(new DbUserRepo(), BoundedCache.<String, User>builder()
+                .maximumSize(1)
+                .expireAfterAccess(Duration.ofSeconds(30)));
+        var threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) (threads[i] = new Thread(() -> small.find("u1"))).start();
+        for (var t : threads) { try { t.join(); } catch (InterruptedException ignored) {} }
+        small.find("u2"); // вытесняет u1
+        System.out.println(small.stats()); // loads=2, evictions=1
+
+        // Пакетный и асинхронный доступ: одиночные findAsync склеиваются в один findAll
+        var cached = new CachedUserRepo(new DbUserRepo());
+        var io = Executors.newFixedThreadPool(4); // блокирующие запросы к БД — на своём пуле
+        try (var batching = new BatchingUserRepo(cached, Duration.ofMillis(5), 100, io)) {
+            var futures = List.of(batching.findAsync("u1"), batching.findAsync("u2"), batching.findAsync("u3"));
+            futures.forEach(f -> System.out.println(f.join())); // один [db] batch query, u3 -> null
+        } finally {
+            io.shutdown();
+        }
+        System.out.println(cached.findAll(List.of("u1", "u2"))); // всё из кеша
+
+        // Второй уровень вне кучи: L1 на 1 запись, L2 — 64 КБ direct-памяти
+        UserRepo tiered = new TieredUserRepo(new DbUserRepo(), 1, 64 * 1024);
+        tiered.find("u1"); // промах - [db]
+        tiered.find("u2"); // промах - [db], u1 вытеснен из L1
+        System.out.println(tiered.find("u1")); // из off-heap L2, без [db]
+
+        // Тёплый старт: снимок прошлого процесса отображается в память и читается лениво
+        Path file = Files.createTempFile("users", ".snap");
+        ((CachedUserRepo) repo).snapshotTo(file);
+        var snapshot = UserSnapshot.open(file, Duration.ofHours(1));
+        var restarted = new CachedUserRepo(new DbUserRepo(), BoundedCache.<String, User>builder()
+                .maximumSize(10_000), snapshot);
+        System.out.println(restarted.find("u2")); // [snapshot] hit, без [db]
+        System.out.println("first request from snapshot in " + snapshot.timeToFirstServeMillis() + " ms");
+        Files.deleteIfExists(file);
     }
 }
@@ -0,0 +1,185 @@
+package structural.proxy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Off-heap хранилище пользователей: слот-арена в direct ByteBuffer + open-addressing индекс
+// по 64-битному хешу id. Ключи и записи не живут в куче — GC их не сканирует.
+// Поиск не выделяет память до момента десериализации найденной записи.
+final class OffHeapUserStore {
+    // Раскладка слота: [long hash][short idLen][short nameLen][id chars][name chars]
+    private static final int HEADER = Long.BYTES + 2 * Short.BYTES;
+    private static final int EMPTY = -1;
+
+    private final ByteBuffer arena;
+    private final int slotSize;
+    private final int slotCount;
+
+    // индекс: hash -> номер слота, линейное пробирование
+    private final long[] tableHash;
+    private final int[] tableSlot;
+    private final int mask;
+
+    // clock-вытеснение: бит обращения на слот и «стрелка»
+    private final byte[] referenced;
+    private int hand;
+    private int freeCursor;            // слоты выдаются подряд, пока арена не заполнится
+    private final int[] freeSlots;     // освобождённые remove(...) слоты
+    private int freeTop;
+
+    private final StampedLock lock = new StampedLock();
+
+    OffHeapUserStore(long budgetBytes, int slotSize) {
+        if (budgetBytes > Integer.MAX_VALUE) throw new IllegalArgumentException("budget > 2 GiB");
+        this.slotSize = slotSize;
+        this.slotCount = (int) (budgetBytes / slotSize);
+        if (slotCount == 0) throw new IllegalArgumentException("budget is smaller than one slot");
+        this.arena = ByteBuffer.allocateDirect(slotCount * slotSize);
+
+        int cap = Integer.highestOneBit(Math.max(2, slotCount * 2 - 1)) << 1; // заполнение ≤ 50%
+        this.tableHash = new long[cap];
+        this.tableSlot = new int[cap];
+        Arrays.fill(tableSlot, EMPTY);
+        this.mask = cap - 1;
+        this.referenced = new byte[slotCount];
+        this.freeSlots = new int[slotCount];
+    }
+
+    User get(String id) {
+        long h = hash(id);
+        long stamp = lock.readLock();
+        try {
+            int slot = lookup(id, h);
+            if (slot == EMPTY) return null;
+            referenced[slot] = 1; // гонка безвредна: это лишь подсказка для clock
+            return read(slot, id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // false — запись не помещается в слот и не кешируется
+    boolean put(User u) {
+        int bytes = HEADER + 2 * (u.id().length() + u.name().length());
+        if (bytes > slotSize) return false;
+        long h = hash(u.id());
+        long stamp = lock.writeLock();
+        try {
+            int slot = lookup(u.id(), h);
+            if (slot == EMPTY) {
+                slot = allocateSlot();
+                insertIndex(h, slot);
+            }
+            write(slot, h, u);
+            referenced[slot] = 0;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(String id) {
+        long h = hash(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = lookup(id, h);
+            if (slot != EMPTY) {
+                removeIndex(h, slot);
+                freeSlots[freeTop++] = slot;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int capacity() { return slotCount; }
+
+    // --- индекс ---
+
+    private int lookup(String id, long h) {
+        for (int i = (int) h & mask; tableSlot[i] != EMPTY; i = (i + 1) & mask) {
+            if (tableHash[i] == h && idEquals(tableSlot[i], id)) return tableSlot[i];
+        }
+        return EMPTY;
+    }
+
+    private void insertIndex(long h, int slot) {
+        int i = (int) h & mask;
+        while (tableSlot[i] != EMPTY) i = (i + 1) & mask;
+        tableHash[i] = h;
+        tableSlot[i] = slot;
+    }
+
+    // Удаление со сдвигом назад: без «надгробий», цепочки пробирования остаются короткими
+    private void removeIndex(long h, int slot) {
+        int i = (int) h & mask;
+        while (tableSlot[i] != slot) i = (i + 1) & mask;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (tableSlot[j] == EMPTY) break;
+            int home = (int) tableHash[j] & mask;
+            // элемент j можно переложить в дырку i, если его «дом» не лежит в (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                tableHash[i] = tableHash[j];
+                tableSlot[i] = tableSlot[j];
+                i = j;
+            }
+        }
+        tableSlot[i] = EMPTY;
+    }
+
+    // --- арена ---
+
+    private int allocateSlot() {
+        if (freeCursor < slotCount) return freeCursor++;
+        if (freeTop > 0) return freeSlots[--freeTop];
+        while (true) { // clock: второй шанс для недавно прочитанных слотов
+            int slot = hand;
+            hand = (hand + 1) % slotCount;
+            if (referenced[slot] != 0) { referenced[slot] = 0; continue; }
+            removeIndex(arena.getLong(slot * slotSize), slot);
+            return slot;
+        }
+    }
+
+    private void write(int slot, long h, User u) {
+        int p = slot * slotSize;
+        arena.putLong(p, h);
+        arena.putShort(p + 8, (short) u.id().length());
+        arena.putShort(p + 10, (short) u.name().length());
+        p += HEADER;
+        for (int i = 0; i < u.id().length(); i++, p += 2) arena.putChar(p, u.id().charAt(i));
+        for (int i = 0; i < u.name().length(); i++, p += 2) arena.putChar(p, u.name().charAt(i));
+    }
+
+    private boolean idEquals(int slot, String id) {
+        int p = slot * slotSize;
+        if (arena.getShort(p + 8) != id.length()) return false;
+        p += HEADER;
+        for (int i = 0; i < id.length(); i++, p += 2) if (arena.getChar(p) != id.charAt(i)) return false;
+        return true;
+    }
+
+    // единственное место с аллокациями — сборка найденного User
+    private User read(int slot, String id) {
+        int p = slot * slotSize;
+        int idLen = arena.getShort(p + 8);
+        int nameLen = arena.getShort(p + 10);
+        p += HEADER + 2 * idLen;
+        char[] name = new char[nameLen];
+        for (int i = 0; i < nameLen; i++, p += 2) name[i] = arena.getChar(p);
+        return new User(id, new String(name));
+    }
+
+    // FNV-1a по символам: без String.getBytes и промежуточных массивов
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 29);
+    }
+}
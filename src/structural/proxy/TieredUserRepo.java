@@ -0,0 +1,38 @@
+package structural.proxy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Proxy с двумя уровнями: маленький on-heap L1 (LRU) -> off-heap L2 -> реальный репозиторий.
+// Тот же контракт UserRepo, поэтому уровень подключается как обычная обёртка.
+final class TieredUserRepo implements UserRepo {
+    private final UserRepo inner;
+    private final OffHeapUserStore l2;
+    private final Map<String, User> l1;
+
+    TieredUserRepo(UserRepo inner, int l1Size, long offHeapBudgetBytes) {
+        this.inner = inner;
+        this.l2 = new OffHeapUserStore(offHeapBudgetBytes, 128);
+        this.l1 = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > l1Size;
+            }
+        };
+    }
+
+    @Override public User find(String id) {
+        User u;
+        synchronized (l1) { u = l1.get(id); }
+        if (u != null) return u;
+
+        u = l2.get(id);
+        if (u == null) {
+            System.out.println("[offheap] miss " + id);
+            u = inner.find(id);
+            if (u == null) return null;
+            l2.put(u);
+        }
+        synchronized (l1) { l1.put(id, u); }
+        return u;
+    }
+}
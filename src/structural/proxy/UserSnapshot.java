@@ -0,0 +1,183 @@
+package structural.proxy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Снимок кеша в memory-mapped файле: после деплоя прокси стартует «тёплым».
+// Файл отображается в память целиком, но записи декодируются только по запросу.
+//
+// Формат (big-endian):
+//   header  [int magic][short version][short reserved][int count][long createdAt][int indexOffset][int headerCrc]
+//   records [int crc][long writtenAt][short idLen][short nameLen][id utf8][name utf8] — crc по всему после себя;
+//           длины беззнаковые, записи с id или именем длиннее 65535 байт в снимок не попадают
+//   index   count × [long idHash][int recordOffset], отсортирован по хешу
+final class UserSnapshot {
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+    private static final int INDEX_ENTRY = Long.BYTES + Integer.BYTES;
+    private static final int MAX_STRING = 0xFFFF;
+
+    record Entry(User user, long writtenAtMillis) {}
+
+    private final ByteBuffer buf;  // null — снимка нет или он битый
+    private final int count;
+    private final int indexOffset;
+    private final long ttlMillis;
+    private final long openedAtNanos = System.nanoTime();
+    private volatile long firstServedNanos;
+    private volatile int skippedRecords;
+
+    private UserSnapshot(ByteBuffer buf, int count, int indexOffset, long ttlMillis) {
+        this.buf = buf; this.count = count; this.indexOffset = indexOffset; this.ttlMillis = ttlMillis;
+    }
+
+    // --- запись ---
+
+    static void write(Path file, List<Entry> all) throws IOException {
+        var entries = new ArrayList<Entry>(all.size());
+        var encoded = new ArrayList<byte[][]>(all.size());
+        int recordsSize = 0;
+        for (Entry e : all) {
+            byte[] id = e.user().id().getBytes(StandardCharsets.UTF_8);
+            byte[] name = e.user().name().getBytes(StandardCharsets.UTF_8);
+            if (id.length > MAX_STRING || name.length > MAX_STRING) { // в short не влезет — запись вернётся из БД
+                System.out.println("[snapshot] too long, skipped: " + e.user().id().substring(0, Math.min(32, e.user().id().length())));
+                continue;
+            }
+            entries.add(e);
+            encoded.add(new byte[][]{id, name});
+            recordsSize += Integer.BYTES + Long.BYTES + 2 * Short.BYTES + id.length + name.length;
+        }
+        int indexOffset = HEADER_SIZE + recordsSize;
+        int size = indexOffset + entries.size() * INDEX_ENTRY;
+
+        // пишем во временный файл и атомарно подменяем — читатель не увидит половину снимка
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+               .putInt(entries.size()).putLong(System.currentTimeMillis()).putInt(indexOffset);
+            out.putInt(crc(out, 0, HEADER_SIZE - Integer.BYTES));
+
+            long[][] index = new long[entries.size()][];
+            for (int i = 0; i < entries.size(); i++) {
+                int offset = out.position();
+                byte[] id = encoded.get(i)[0], name = encoded.get(i)[1];
+                out.position(offset + Integer.BYTES);
+                out.putLong(entries.get(i).writtenAtMillis())
+                   .putShort((short) id.length).putShort((short) name.length).put(id).put(name);
+                out.putInt(offset, crc(out, offset + Integer.BYTES, out.position() - offset - Integer.BYTES));
+                index[i] = new long[]{OffHeapUserStore.hash(entries.get(i).user().id()), offset};
+            }
+            Arrays.sort(index, Comparator.comparingLong(a -> a[0]));
+            for (long[] ix : index) out.putLong(ix[0]).putInt((int) ix[1]);
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --- чтение ---
+
+    static UserSnapshot open(Path file, Duration ttl) {
+        if (!Files.exists(file)) return empty(ttl);
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.limit() < HEADER_SIZE || in.getInt(0) != MAGIC || in.getShort(4) != VERSION
+                    || in.getInt(HEADER_SIZE - Integer.BYTES) != crc(in, 0, HEADER_SIZE - Integer.BYTES)) {
+                System.out.println("[snapshot] bad header, ignored: " + file);
+                return empty(ttl);
+            }
+            int count = in.getInt(8);
+            int indexOffset = in.getInt(20);
+            if (indexOffset < HEADER_SIZE || (long) indexOffset + (long) count * INDEX_ENTRY > in.limit()) {
+                System.out.println("[snapshot] truncated, ignored: " + file);
+                return empty(ttl);
+            }
+            return new UserSnapshot(in, count, indexOffset, ttl.toMillis());
+        } catch (IOException e) {
+            System.out.println("[snapshot] unreadable, ignored: " + e.getMessage());
+            return empty(ttl);
+        }
+    }
+
+    private static UserSnapshot empty(Duration ttl) { return new UserSnapshot(null, 0, 0, ttl.toMillis()); }
+
+    // Бинарный поиск по индексу + декодирование одной записи; битые и просроченные пропускаем
+    User find(String id) {
+        Entry e = findEntry(id);
+        return e == null ? null : e.user();
+    }
+
+    // запись вместе с исходным моментом записи — кеш продолжит отсчёт TTL от него
+    Entry findEntry(String id) {
+        if (buf == null) return null;
+        long h = OffHeapUserStore.hash(id);
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (buf.getLong(indexOffset + mid * INDEX_ENTRY) < h) lo = mid + 1; else hi = mid;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = lo; i < count && buf.getLong(indexOffset + i * INDEX_ENTRY) == h; i++) {
+            Entry e = decode(buf.getInt(indexOffset + i * INDEX_ENTRY + Long.BYTES), id, now);
+            if (e != null) {
+                if (firstServedNanos == 0) firstServedNanos = System.nanoTime();
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private Entry decode(int offset, String id, long now) {
+        int body = offset + Integer.BYTES;
+        if (offset < HEADER_SIZE || body + Long.BYTES + 2 * Short.BYTES > indexOffset) return corrupt();
+        int idLen = Short.toUnsignedInt(buf.getShort(body + 8)), nameLen = Short.toUnsignedInt(buf.getShort(body + 10));
+        int end = body + 12 + idLen + nameLen;
+        if (end > indexOffset) return corrupt();
+        if (buf.getInt(offset) != crc(buf, body, end - body)) return corrupt();
+        long writtenAt = buf.getLong(body);
+        if (ttlMillis > 0 && now - writtenAt >= ttlMillis) return null; // просрочено
+
+        String storedId = utf8(body + 12, idLen);
+        if (!storedId.equals(id)) return null; // коллизия хеша
+        return new Entry(new User(storedId, utf8(body + 12 + idLen, nameLen)), writtenAt);
+    }
+
+    private Entry corrupt() { skippedRecords++; return null; }
+
+    private String utf8(int offset, int len) {
+        byte[] bytes = new byte[len];
+        buf.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer b, int offset, int len) {
+        var crc = new CRC32();
+        crc.update(b.slice(offset, len));
+        return (int) crc.getValue();
+    }
+
+    int size() { return count; }
+    int skippedRecords() { return skippedRecords; }
+
+    // сколько прошло от открытия снимка до первого обслуженного из него запроса
+    long timeToFirstServeMillis() {
+        long first = firstServedNanos;
+        return first == 0 ? -1 : (first - openedAtNanos) / 1_000_000;
+    }
+}